@@ -0,0 +1,53 @@
+package utils.base64;
+
+/**
+ * Codec backend, carrying out the bulk block encoding & decoding of Base64Convertor<br><br>
+ * 
+ * A backend only deals with complete blocks free of line breaks & paddings,
+ * it may stop at any block boundary, remaining blocks are then processed by the built-in scalar code.
+ * Backends are registered to {@link Base64Backends}, which selects the active one per convertor.
+ */
+public interface Base64Backend {
+    /**
+     * Backend name, also the value to force this backend with {@link Base64Backends#BACKEND_PROPERTY}
+     * 
+     * @return backend name
+     */
+    String name();
+    
+    /**
+     * Check whether the convertor is supported by this backend
+     * 
+     * @param convertor target convertor
+     * 
+     * @return check result
+     */
+    boolean supports(Base64Convertor.Convertor convertor);
+    
+    /**
+     * Encode complete blocks of 3 bytes, 4 characters are written per block
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive)
+     * @param dest destination bytes, must have room for 4 bytes per block
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @return source offset where encoding stopped, on block boundary
+     */
+    int encode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor);
+    
+    /**
+     * Decode complete blocks of 4 characters, 3 bytes are written per block,
+     * must stop before the first block containing any unmappable byte.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive)
+     * @param dest destination bytes, must have room for 3 bytes per block
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @return source offset where decoding stopped, on block boundary
+     */
+    int decode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor);
+}
@@ -0,0 +1,169 @@
+package utils.base64;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of codec backends, selecting the active backend of every convertor<br><br>
+ * 
+ * Built-in backends are scalar, swar (word-at-a-time), jdk (java.util.Base64 encoding, STANDARD & URL_SAFE only)
+ * and vector (only when its classes are present & running with --add-modules jdk.incubator.vector).
+ * The active backend of a convertor is the first one supporting it in the fixed default order: vector, swar, scalar.
+ * Selection is deterministic & done on first use, no timing is involved.
+ * A backend can be forced with system property {@value #BACKEND_PROPERTY} (e.g. -Dutils.base64.backend=jdk),
+ * convertors not supported by it follow the default order.
+ */
+public final class Base64Backends {
+    /**
+     * System property forcing the backend by name, convertors not supported by it follow the default order
+     */
+    public static final String BACKEND_PROPERTY = "utils.base64.backend";
+    
+    /**
+     * Names of backends in order of preference, a registered backend takes the place of the built-in one of its name
+     */
+    private static final String[] DEFAULT_ORDER = {"vector", "swar", "scalar"};
+    
+    /**
+     * Vector backend class, built apart from the core classes on the incubating jdk.incubator.vector module
+     */
+    private static final String VECTOR_BACKEND_CLASS = "utils.base64.VectorBackend";
+    
+    /**
+     * Registered backends, in registration order
+     */
+    private static final List<Base64Backend> BACKENDS = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Active backend of every convertor (indexed by convertor ordinal), null until selected
+     */
+    private static volatile Base64Backend[] active;
+    
+    static {
+        BACKENDS.add(new ScalarBackend());
+        BACKENDS.add(new SwarBackend());
+        BACKENDS.add(new JdkBackend());
+        
+        Base64Backend vector = loadVectorBackend();
+        if (vector != null) {
+            BACKENDS.add(vector);
+        }
+    }
+    
+    /**
+     * No instantiation is required!
+     */
+    private Base64Backends() {}
+    
+    /**
+     * Load the vector backend reflectively if it can be used,
+     * jdk.incubator.vector module must be resolved (--add-modules jdk.incubator.vector)
+     * & the vector backend classes must be on the class path
+     * 
+     * @return vector backend, null if unavailable
+     */
+    private static Base64Backend loadVectorBackend() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return null;
+        }
+        
+        try {
+            Class<?> type = Class.forName(VECTOR_BACKEND_CLASS);
+            if (!(Boolean)type.getDeclaredMethod("isSupported").invoke(null)) {
+                return null;
+            }
+            return (Base64Backend)type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Classes missing or module resolved but unusable, leave it out
+            return null;
+        }
+    }
+    
+    /**
+     * Register a backend, replacing any registered backend with the same name.
+     * Active backends are selected again on next use.
+     * 
+     * @param backend backend to be registered
+     */
+    public static synchronized void register(Base64Backend backend) {
+        if (backend == null) {
+            throw new IllegalArgumentException("Backend must not be null!");
+        }
+        
+        BACKENDS.removeIf(b -> b.name().equals(backend.name()));
+        BACKENDS.add(backend);
+        active = null;
+    }
+    
+    /**
+     * Retrieve all registered backends
+     * 
+     * @return registered backends (unmodifiable)
+     */
+    public static List<Base64Backend> getBackends() {
+        return Collections.unmodifiableList(BACKENDS);
+    }
+    
+    /**
+     * Retrieve the active backend of the convertor, selecting backends on first use
+     * 
+     * @param convertor target convertor
+     * @return active backend
+     */
+    public static Base64Backend getBackend(Base64Convertor.Convertor convertor) {
+        Base64Backend[] backends = active;
+        if (backends == null) {
+            backends = select();
+        }
+        return backends[convertor.ordinal()];
+    }
+    
+    /**
+     * Select the active backend of every convertor, forced or the first supporting one in the default order
+     * 
+     * @return active backends (indexed by convertor ordinal)
+     */
+    private static synchronized Base64Backend[] select() {
+        if (active != null) {
+            return active;
+        }
+        
+        Base64Convertor.Convertor[] convertors = Base64Convertor.Convertor.values();
+        Base64Backend[] backends = new Base64Backend[convertors.length];
+        String forced = System.getProperty(BACKEND_PROPERTY);
+        
+        for (Base64Convertor.Convertor convertor : convertors) {
+            Base64Backend selected = find(BACKENDS, forced, convertor);
+            for (int i = 0; selected == null && i < DEFAULT_ORDER.length; i++) {
+                selected = find(BACKENDS, DEFAULT_ORDER[i], convertor);
+            }
+            
+            // Built-in backends replaced by registered ones not supporting the convertor
+            if (selected == null) {
+                selected = new ScalarBackend();
+            }
+            backends[convertor.ordinal()] = selected;
+        }
+        
+        active = backends;
+        return backends;
+    }
+    
+    /**
+     * Find the backend with the name supporting the convertor
+     * 
+     * @param candidates registered backends
+     * @param name backend name, may be null
+     * @param convertor target convertor
+     * @return found backend, null if not found
+     */
+    private static Base64Backend find(List<Base64Backend> candidates, String name, Base64Convertor.Convertor convertor) {
+        for (Base64Backend candidate : candidates) {
+            if (candidate.name().equals(name) && candidate.supports(convertor)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package utils.base64;
+
+/**
+ * Pool of working buffers borrowed by streams & stream based codec calls<br><br>
+ * 
+ * Buffers are borrowed with {@link #acquire(int)} & returned with {@link #release(byte[])} once no longer used,
+ * possibly from another thread. Implementations must be thread safe.
+ * 
+ * @see Base64BufferPools
+ */
+public interface Base64BufferPool {
+    /**
+     * Borrow a buffer
+     * 
+     * @param size buffer size
+     * @return buffer of exactly size bytes, content is undefined
+     */
+    byte[] acquire(int size);
+    
+    /**
+     * Return a buffer, it must not be used afterward
+     * 
+     * @param buffer buffer borrowed from this pool
+     */
+    void release(byte[] buffer);
+}
@@ -0,0 +1,52 @@
+package utils.base64;
+
+/**
+ * Holder of the default buffer pool, used by streams & stream based codec calls not given a pool explicitly<br><br>
+ * 
+ * A {@link ThreadLocalBufferPool} is the default pool, {@link #ALLOCATING} opts out of pooling.
+ */
+public final class Base64BufferPools {
+    /**
+     * Pool allocating a new buffer for every acquire, nothing is retained
+     */
+    public static final Base64BufferPool ALLOCATING = new Base64BufferPool() {
+        @Override
+        public byte[] acquire(int size) {
+            return new byte[size];
+        }
+        
+        @Override
+        public void release(byte[] buffer) {
+            // Left to garbage collection
+        }
+    };
+    
+    private static volatile Base64BufferPool defaultPool = new ThreadLocalBufferPool();
+    
+    /**
+     * No instantiation is required!
+     */
+    private Base64BufferPools() {}
+    
+    /**
+     * Retrieve the default buffer pool
+     * 
+     * @return default buffer pool
+     */
+    public static Base64BufferPool getDefault() {
+        return defaultPool;
+    }
+    
+    /**
+     * Replace the default buffer pool, streams created afterward use the new pool
+     * 
+     * @param pool new default buffer pool
+     */
+    public static void setDefault(Base64BufferPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Buffer pool must not be null!");
+        }
+        
+        defaultPool = pool;
+    }
+}
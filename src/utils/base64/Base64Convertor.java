@@ -1,15 +1,29 @@
 package utils.base64;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Base64 Encoding & decoding
@@ -48,10 +62,19 @@ public class Base64Convertor {
         private final byte[] ALPHABETS;
         private final byte[] DECODABETS;
         
+        /**
+         * Decoding table covering all 256 byte values, non-ASCII values are unmappable
+         */
+        private final byte[] BYTE_DECODABETS;
+        
         Convertor(String desc, byte[] ALPHABETS, byte[] DECODABETS) {
             this.desc       = desc;
             this.ALPHABETS  = ALPHABETS;
             this.DECODABETS = DECODABETS;
+            
+            this.BYTE_DECODABETS = new byte[256];
+            Arrays.fill(BYTE_DECODABETS, (byte)-9);
+            System.arraycopy(DECODABETS, 0, BYTE_DECODABETS, 0, DECODABETS.length);
         }
         
         /**
@@ -62,12 +85,7 @@ public class Base64Convertor {
          * @return check result
          */
         public boolean isEncodedChar(char c) {
-            for (byte byt : ALPHABETS) {
-                if (byt == c) {
-                    return true;
-                }
-            }
-            return false;
+            return c < 256 && BYTE_DECODABETS[c] >= 0;
         }
         
         /**
@@ -78,12 +96,152 @@ public class Base64Convertor {
          * @return check result
          */
         public boolean isEncodedByte(byte b) {
-            for (byte byt : ALPHABETS) {
-                if (byt == b) {
-                    return true;
+            return BYTE_DECODABETS[b & 0xFF] >= 0;
+        }
+        
+        /**
+         * Check whether the bytes are a valid base64 payload
+         * 
+         * @param bytes bytes to be checked
+         * @param offset start offset
+         * @param length number of bytes to check
+         * 
+         * @return check result
+         * 
+         * @see #findInvalid(byte[], int, int)
+         */
+        public boolean isValid(byte[] bytes, int offset, int length) {
+            return findInvalid(bytes, offset, length) < 0;
+        }
+        
+        /**
+         * Check whether the characters are a valid base64 payload
+         * 
+         * @param chars characters to be checked
+         * @param offset start offset
+         * @param length number of characters to check
+         * 
+         * @return check result
+         * 
+         * @see #findInvalid(CharSequence, int, int)
+         */
+        public boolean isValid(CharSequence chars, int offset, int length) {
+            return findInvalid(chars, offset, length) < 0;
+        }
+        
+        /**
+         * Find the first invalid byte of a base64 payload: encoded characters only (no line breaks),
+         * paddings are optional but must complete the last block if present.
+         * Unpadded last block must have 2 or 3 characters.
+         * 
+         * @param bytes bytes to be checked
+         * @param offset start offset
+         * @param length number of bytes to check
+         * 
+         * @return offset of the first invalid byte, offset + length if the payload ends early, -1 if valid
+         */
+        public int findInvalid(byte[] bytes, int offset, int length) {
+            if (offset < 0 || length < 0 || offset > bytes.length - length) {
+                throw new IndexOutOfBoundsException();
+            }
+            
+            byte[] decodabets = BYTE_DECODABETS;
+            int end = offset + length, i = offset;
+            
+            // 8 bytes per check, sign bit is set if any of them is unmappable
+            while (i <= end - 8 && (
+                    decodabets[bytes[i] & 0xFF] | decodabets[bytes[i + 1] & 0xFF] |
+                    decodabets[bytes[i + 2] & 0xFF] | decodabets[bytes[i + 3] & 0xFF] |
+                    decodabets[bytes[i + 4] & 0xFF] | decodabets[bytes[i + 5] & 0xFF] |
+                    decodabets[bytes[i + 6] & 0xFF] | decodabets[bytes[i + 7] & 0xFF]
+            ) >= 0) {
+                i += 8;
+            }
+            
+            while (i < end && decodabets[bytes[i] & 0xFF] >= 0) {
+                i++;
+            }
+            
+            int p = i;
+            while (p < end && bytes[p] == PADDING_BYTE) {
+                p++;
+            }
+            
+            return findInvalidEnd(offset, i, p, end);
+        }
+        
+        /**
+         * Find the first invalid character of a base64 payload
+         * 
+         * @param chars characters to be checked
+         * @param offset start offset
+         * @param length number of characters to check
+         * 
+         * @return offset of the first invalid character, offset + length if the payload ends early, -1 if valid
+         * 
+         * @see #findInvalid(byte[], int, int)
+         */
+        public int findInvalid(CharSequence chars, int offset, int length) {
+            if (offset < 0 || length < 0 || offset > chars.length() - length) {
+                throw new IndexOutOfBoundsException();
+            }
+            
+            byte[] decodabets = BYTE_DECODABETS;
+            int end = offset + length, i = offset;
+            
+            // 4 characters per check, sign bit is set if any of them is unmappable or beyond 8 bits
+            while (i <= end - 4) {
+                char c0 = chars.charAt(i), c1 = chars.charAt(i + 1), c2 = chars.charAt(i + 2), c3 = chars.charAt(i + 3);
+                if ((decodabets[c0 & 0xFF] | decodabets[c1 & 0xFF] | decodabets[c2 & 0xFF] | decodabets[c3 & 0xFF] |
+                        -((c0 | c1 | c2 | c3) >>> 8)) < 0) {
+                    break;
                 }
+                i += 4;
             }
-            return false;
+            
+            while (i < end && isEncodedChar(chars.charAt(i))) {
+                i++;
+            }
+            
+            int p = i;
+            while (p < end && chars.charAt(p) == PADDING_BYTE) {
+                p++;
+            }
+            
+            return findInvalidEnd(offset, i, p, end);
+        }
+        
+        /**
+         * Check the end of a payload after its encoded characters
+         * 
+         * @param offset start offset of the payload
+         * @param i offset of the first character not encoded
+         * @param p offset after the paddings following i
+         * @param end end offset of the payload (exclusive)
+         * 
+         * @return offset of the first invalid character, end if the payload ends early, -1 if valid
+         */
+        private static int findInvalidEnd(int offset, int i, int p, int end) {
+            int r = (i - offset) % 4;
+            
+            if (p == i) {
+                // No padding, unpadded last block must have 2 or 3 characters
+                if (i < end) {
+                    return i;
+                }
+                return (r == 1)? end : -1;
+            } else if (r < 2) {
+                // Padding not expected
+                return i;
+            }
+            
+            int pads = 4 - r;
+            if (p - i > pads) {
+                return i + pads;
+            } else if (p < end) {
+                return p;
+            }
+            return (p - i < pads)? end : -1;
         }
         
         /**
@@ -149,11 +307,41 @@ public class Base64Convertor {
      */
     public static final byte PADDING_BYTE = (byte)'=';
     
+    /**
+     * Default input size below which parallel encoding falls back to sequential encoding
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+    
     /**
      * Standard line break \r\n
      */
     private static final byte[] LINE_BREAK_BYTES = {'\r', '\n'};
     
+    /**
+     * Number of binary bytes making up one chunked line (CHUNK_SIZE characters)
+     */
+    private static final int CHUNK_BYTES = CHUNK_SIZE / 4 * 3;
+    
+    /**
+     * Binary bytes processed per block by stream encoding, multiple of CHUNK_BYTES so that blocks end on line boundary
+     */
+    private static final int ENCODE_BLOCK_SIZE = CHUNK_BYTES * 144;
+    
+    /**
+     * Binary bytes per block of pipelined stream encoding, multiple of CHUNK_BYTES so that blocks end on line boundary
+     */
+    private static final int PIPELINE_BLOCK_SIZE = CHUNK_BYTES * (1 << 14);
+    
+    /**
+     * Encoded bytes read per block by stream decoding
+     */
+    private static final int DECODE_BLOCK_SIZE = 8192;
+    
+    /**
+     * Maximum size of a single memory mapped region for file conversion
+     */
+    private static final int MAP_WINDOW_SIZE = 1 << 26;
+    
     /**
      * MY encoding table
      */
@@ -290,6 +478,19 @@ public class Base64Convertor {
         -9,-9,-9,-9
     };
     
+    /**
+     * Standard & url safe decoding table covering all 256 byte values,
+     * used by suggested decoding until a distinguishable character comes
+     */
+    private final static byte[] _SUGGESTED_DECODE = new byte[256];
+    
+    static {
+        Arrays.fill(_SUGGESTED_DECODE, (byte)-9);
+        for (int i = 0; i < _STANDARD_DECODE.length; i++) {
+            _SUGGESTED_DECODE[i] = (byte)Math.max(_STANDARD_DECODE[i], _URL_SAFE_DECODE[i]);
+        }
+    }
+    
     /**
      * No instantiation is required!
      */
@@ -303,423 +504,1842 @@ public class Base64Convertor {
      * @return original binary bytes
      */
     public static byte[] decode(byte[] srcBytes, Convertor convertor) {
-        byte[] bytes = new byte[srcBytes.length];
-        int c = 0;
-        for (int i = 0; i < srcBytes.length; i++) {
-            byte byt = convertor.decode(srcBytes[i]);
-            if (byt >= 0) {
-                bytes[c++] = byt;
-            }
+        // Trailing paddings & line breaks never produce output, exclude them from the estimation
+        int l = srcBytes.length;
+        while (l > 0 && convertor.BYTE_DECODABETS[srcBytes[l - 1] & 0xFF] < 0) {
+            l--;
         }
-        return shiftDecode(bytes, c);
+        
+        // Line breaks laid out as chunked encoding does never produce output either
+        long chars = isChunked(srcBytes, l, convertor)? charsBefore(l, true) : l;
+        byte[] output = new byte[(int)decodedLength(chars)];
+        
+        int c = decodeBytes(srcBytes, 0, l, output, 0, convertor);
+        
+        return (c == output.length)? output : Arrays.copyOf(output, c);
     }
     
     /**
-     * Decode encoded characters to its original binary bytes
+     * Decode bytes(Base64) strictly to its original binary bytes
      * 
-     * @param chars encoded characters
+     * @param srcBytes source bytes
      * @param convertor target convertor
      * @return original binary bytes
+     * 
+     * @throws Base64FormatException if source bytes is not a valid base64 payload
+     * 
+     * @see #decodeStrict(byte[], int, int, Convertor)
      */
-    public static byte[] decode(char[] chars, Convertor convertor) {
-        byte[] bytes = new byte[chars.length];
-        int c = 0;
-        for (int i = 0; i < chars.length; i++) {
-            byte byt = convertor.decode(chars[i]);
-            if (byt >= 0) {
-                bytes[c++] = byt;
-            }
-        }
-        return shiftDecode(bytes, c);
+    public static byte[] decodeStrict(byte[] srcBytes, Convertor convertor) {
+        return decodeStrict(srcBytes, 0, srcBytes.length, convertor);
     }
-
+    
     /**
-     * Suggest base64 convertor by detecting special character within encoded string
-     * If no distinguishable character is found, suggest standard convertor
+     * Decode bytes(Base64) strictly to its original binary bytes, validating in the same pass.<br>
+     * Every byte must be an encoded character (no line breaks), paddings are optional
+     * but must complete the last block if present, as Convertor.isValid requires.
      * 
-     * MY & ORDERED convertor will be ignored, since they may cause issues
+     * @param src source bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to decode
+     * @param convertor target convertor
+     * @return original binary bytes
      * 
-     * @param base64String encoded base64 string
-     *
-     * @return suggested convertor, default STANDARD
+     * @throws Base64FormatException if source bytes is not a valid base64 payload,
+     *                               with the offset of the first invalid byte
+     * @throws IndexOutOfBoundsException if source range is invalid
      */
-    public static Convertor suggestConvertor(String base64String) {
-        for (int i = 0; i < base64String.length(); i++) {
-            char ch = base64String.charAt(i);
-            
-            // Only suggest standard and url safe convertor
-            switch (ch) {
-                case '+':
-                case '/':
-                    return Convertor.STANDARD;
-                case '-':
-                case '_':
-                    return Convertor.URL_SAFE;
-            }
+    public static byte[] decodeStrict(byte[] src, int srcOff, int srcLen, Convertor convertor) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen) {
+            throw new IndexOutOfBoundsException();
         }
         
-        // No distinguishable character found, suggest standard
-        // Assuming input contains no invalid character, since this method is not for validation
-        return Convertor.STANDARD;
+        int end = srcOff + srcLen;
+        
+        // Exact output length of a valid payload, at most 2 trailing paddings
+        int l = srcLen;
+        while (l > 0 && srcLen - l < 2 && src[srcOff + l - 1] == PADDING_BYTE) {
+            l--;
+        }
+        byte[] output = new byte[(int)decodedLength(l)];
+        
+        // Complete blocks are decoded as lenient decoding does, validation starts where it stops
+        int si = decodeGroups(src, srcOff, end, output, 0, convertor);
+        
+        int invalid = convertor.findInvalid(src, si, end - si);
+        if (invalid == end) {
+            throw new Base64FormatException("Incomplete base64 data at offset " + invalid + "!", invalid);
+        } else if (invalid >= 0) {
+            throw new Base64FormatException("Invalid base64 character at offset " + invalid + "!", invalid);
+        }
+        
+        // Only the last incomplete block & its paddings are left
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        int bits = 0, n = 0;
+        for (; si < end && src[si] != PADDING_BYTE; si++, n++) {
+            bits = bits << 6 | decodabets[src[si] & 0xFF];
+        }
+        decodeTail(bits, n, output, (si - n - srcOff) / 4 * 3);
+        
+        return output;
     }
-
+    
     /**
-     * Decode base64 encoded string with suggested convertor
+     * Decode string(Base64) strictly to its original binary bytes
      * 
-     * @param base64String encoded base64 string
+     * @param base64String encoded string
+     * @param convertor target convertor
+     * @return original binary bytes
      * 
-     * @return decoded bytes
+     * @throws Base64FormatException if the string is not a valid base64 payload,
+     *                               with the index of the first invalid character
+     * 
+     * @see #decodeStrict(byte[], int, int, Convertor)
      */
-    public static byte[] decode(String base64String) {
-        return decode(base64String, suggestConvertor(base64String));
+    public static byte[] decodeStrict(String base64String, Convertor convertor) {
+        // Characters beyond ISO-8859-1 become '?', which is invalid for every convertor
+        return decodeStrict(base64String.getBytes(StandardCharsets.ISO_8859_1), convertor);
     }
     
     /**
-     * Decode encoded string to its original binary bytes
+     * Decode bytes(Base64) in parallel with the common fork join pool
      * 
-     * @param base64String base64 encoded string
+     * @param srcBytes source bytes
      * @param convertor target convertor
-     * @return original binary bytes
+     * @return original binary bytes, identical to sequential decoding
      */
-    public static byte[] decode(String base64String, Convertor convertor) {
-        byte[] bytes = new byte[base64String.length()];
+    public static byte[] decodeParallel(byte[] srcBytes, Convertor convertor) {
+        return decodeParallel(srcBytes, convertor, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+    
+    /**
+     * Decode bytes(Base64) in parallel.<br>
+     * Mappable characters of each segment are counted concurrently first,
+     * segment boundaries are then moved forward onto complete blocks (unmappable bytes such as line breaks
+     * are skipped) so that every segment decodes into its own region of a shared output concurrently.
+     * 
+     * @param srcBytes source bytes
+     * @param convertor target convertor
+     * @param pool fork join pool executing the decoding
+     * @param threshold input smaller than this is decoded sequentially, also the minimum segment size
+     * @return original binary bytes, identical to sequential decoding
+     */
+    public static byte[] decodeParallel(byte[] srcBytes, Convertor convertor, ForkJoinPool pool, int threshold) {
+        if (srcBytes.length < threshold || pool.getParallelism() < 2) {
+            return decode(srcBytes, convertor);
+        }
         
-        int c = 0;
-        for (int i = 0; i < base64String.length(); i++) {
-            byte byt = convertor.decode(base64String.charAt(i));
-            if (byt >= 0) {
-                bytes[c++] = byt;
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        
+        // Few segments per worker for load balancing
+        int segmentSize = Math.max(Math.max(threshold, 4), srcBytes.length / (pool.getParallelism() * 4));
+        int segments = (srcBytes.length - 1) / segmentSize + 1;
+        
+        int[] bounds = new int[segments + 1], counts = new int[segments], offsets = new int[segments];
+        for (int i = 0; i < segments; i++) {
+            bounds[i] = (int)Math.min((long)i * segmentSize, srcBytes.length);
+        }
+        bounds[segments] = srcBytes.length;
+        
+        pool.invoke(new CountTask(srcBytes, bounds, counts, 0, segments, decodabets));
+        
+        long count = 0;
+        for (int i = 0; i < segments; i++) {
+            // Skip the remaining characters of the block started in previous segment
+            int skip = (int)(-count & 0x3), p = bounds[i];
+            while (skip > 0 && p < srcBytes.length) {
+                if (decodabets[srcBytes[p++] & 0xFF] >= 0) {
+                    skip--;
+                }
             }
+            
+            bounds[i] = p;
+            offsets[i] = (int)((count + (-count & 0x3) - skip) / 4 * 3);
+            
+            count += counts[i];
         }
         
-        return shiftDecode(bytes, c);
+        byte[] output = new byte[(int)(count * 3 / 4)];
+        
+        pool.invoke(new DecodeTask(srcBytes, bounds, offsets, output, 0, segments, convertor));
+        
+        return output;
     }
     
     /**
-     * @param src source (character mapped)
-     * @param dest destination
-     * @param soffset source offset
-     * @param doffset destination offset
-     * @param len length (1 ~ 4)
+     * Decode bytes(Base64, standard convertor) into the provided destination bytes
+     * 
+     * @param src source bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to decode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     * 
+     * @see #maxDecodedLength(int)
      */
-    private static void shiftDecode(byte[] src, byte[] dest, int soffset, int doffset, int len) {
-        int v1 = src[soffset], v2 = 0, v3 = 0, v4 = 0;
-        if (len == 1) {
-            if (doffset < dest.length) {
-                dest[doffset] = (byte)(v1 << 2);
-            }
-        } else {
-            v2 = src[soffset+1];
-            dest[doffset] = (byte)((v1 << 2) | (v2 >> 4 & 0x3));
-            
-            if (len == 2) {
-                if (doffset + 1 < dest.length) {
-                    dest[doffset + 1] = (byte)((v2 & 0xF) << 4);
-                }
-            } else {
-                v3 = src[soffset+2];
-                dest[doffset + 1] = (byte)(((v2 & 0xF) << 4) | ((v3 >> 2) & 0xF));
-                
-                if (len == 3) {
-                    if (doffset + 2 < dest.length) {
-                        dest[doffset + 2] = (byte) ((v3 & 0x3) << 6);
-                    }
-                } else {
-                    v4 = src[soffset+3];
-                    dest[doffset + 2] = (byte)(((v3 & 0x3) << 6) | (v4 & 0x3F));
-                }
-            }
-        }
+    public static int decode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        return decode(src, srcOff, srcLen, dst, dstOff, Convertor.STANDARD);
     }
     
     /**
-     * Convert 6bit encoded bytes to 8bit bytes
+     * Decode bytes(Base64) into the provided destination bytes, no intermediate array is allocated.<br>
+     * Any unmappable byte (paddings, line breaks, etc) is ignored.
      * 
-     * @param bytes source (character mapped)
-     * @param len length of byte to decode
-     * @return decoded data
+     * @param src source bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to decode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @param convertor target convertor
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid or destination is too small
+     * 
+     * @see #maxDecodedLength(int)
      */
-    public static byte[] shiftDecode(byte[] bytes, int len) {
-        byte[] output = new byte[(int)Math.floor(len * 6 / 8.0)];
-        
-        int si = 0, di = 0;
-        while (si < len) {
-            if (si + 4 < len) {
-                shiftDecode(bytes, output, si, di, 4);
-            } else {
-                shiftDecode(bytes, output, si, di, len - si);
-            }
-            si += 4;
-            di += 3;
+    public static int decode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, Convertor convertor) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen || dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
         }
         
-        return output;
+        return decodeBytes(src, srcOff, srcLen, dst, dstOff, convertor) - dstOff;
     }
-
+    
     /**
-     * Decode input stream data(Base64 encoded) to byte array
+     * Maximum number of bytes decoding the provided number of encoded bytes could produce,
+     * suitable for sizing destination buffer.
      * 
-     * @param is input stream
-     * @param convertor target convertor
-     * @param closeStream close input stream after decoding
-     * @return decoded bytes
-     * @throws IOException
+     * @param length encoded length
+     * @return maximum decoded length
      */
-    public static byte[] decode(InputStream is, Convertor convertor, boolean closeStream) throws IOException {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        decode(is, bos, convertor, closeStream);
-        bos.close();
-        return bos.toByteArray();
+    public static int maxDecodedLength(int length) {
+        return (int)(length * 3L / 4);
     }
-
+    
     /**
-     * Decode input stream data(Base64 encoded) and output the result directly
+     * Number of bytes decoding the provided number of encoded characters produces,
+     * an incomplete last block of 2 ~ 3 characters produces 1 ~ 2 bytes
      * 
-     * @param is input stream
-     * @param os output stream
-     * @param convertor target convertor
-     * @param closeStream close both input & output stream after decoding
-     * @throws IOException
+     * @param chars number of encoded characters, line breaks & paddings excluded
+     * @return decoded length
      */
-    public static void decode(InputStream is, OutputStream os, Convertor convertor, boolean closeStream) 
-            throws IOException {
-        byte[] bytes = new byte[4096];
-        
-        int iby = is.read();
-        int c = 0;
-        while (iby != -1) {
-            byte byt = convertor.decode(iby);
-            /* 
-             * Ignored any unmappable character
-             * If there is any unmappable character(except padding, CRLF)
-             * input data may be corrupted or a wrong convertor is used!
-             */
-            if (byt >= 0) {
-                bytes[c++] = byt;
+    static long decodedLength(long chars) {
+        return chars / 4 * 3 + Math.max(0, chars % 4 - 1);
+    }
+    
+    /**
+     * Check line breaks (or any unmappable bytes) are placed as chunked encoding does,
+     * after every CHUNK_SIZE characters
+     * 
+     * @param src source bytes
+     * @param length number of bytes to check, the last byte is an encoded character
+     * @param convertor target convertor
+     * @return true if every line break position holds unmappable bytes, false if not chunked
+     */
+    private static boolean isChunked(byte[] src, int length, Convertor convertor) {
+        if (length <= CHUNK_SIZE) {
+            return false;
+        }
+        
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        for (int i = CHUNK_SIZE; i < length; i += CHUNK_SIZE + LINE_BREAK_BYTES.length) {
+            for (int j = i; j < i + LINE_BREAK_BYTES.length; j++) {
+                if (j >= length || decodabets[src[j] & 0xFF] >= 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Decode bytes(Base64) from the source buffer into the destination buffer
+     * with defaults: Standard convertor, source is the end of input
+     * 
+     * @param src source buffer
+     * @param dst destination buffer
+     * @return CoderResult.UNDERFLOW when source is consumed, CoderResult.OVERFLOW when destination is full
+     * 
+     * @see #decode(ByteBuffer, ByteBuffer, Convertor, boolean)
+     */
+    public static CoderResult decode(ByteBuffer src, ByteBuffer dst) {
+        return decode(src, dst, Convertor.STANDARD, true);
+    }
+    
+    /**
+     * Decode bytes(Base64) from the source buffer into the destination buffer,
+     * as much as the destination can hold, in the manner of CharsetDecoder.<br>
+     * Positions of both buffers are advanced, heap & direct buffers are accessed in place.
+     * Any unmappable byte (paddings, line breaks, etc) is ignored.<br><br>
+     * 
+     * When more input may follow, an incomplete block at the end of source is left in source,
+     * to be decoded with the following input after the source is compacted & refilled.
+     * 
+     * @param src source buffer
+     * @param dst destination buffer
+     * @param convertor target convertor
+     * @param endOfInput no more input follows the source, the final incomplete block is decoded
+     * @return CoderResult.UNDERFLOW when source is consumed (except an incomplete block left for more input),
+     *         CoderResult.OVERFLOW when destination has no room for the next block
+     */
+    public static CoderResult decode(ByteBuffer src, ByteBuffer dst, Convertor convertor, boolean endOfInput) {
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        int end = src.limit(), dend = dst.limit();
+        
+        int si = src.position(), di = dst.position();
+        int start = si, bits = 0, n = 0;
+        CoderResult result = CoderResult.UNDERFLOW;
+        while (si < end) {
+            if (n == 0) {
+                // Start of next block, everything before has been decoded
+                start = si;
+                
+                if (decodabets[src.get(si) & 0xFF] >= 0) {
+                    int send = si + Math.min(end - si, (dend - di) / 3 * 4);
+                    int se = decodeGroups(src, si, send, dst, di, convertor);
+                    
+                    di += (se - si) / 4 * 3;
+                    si = start = se;
+                    
+                    if (si == end) {
+                        break;
+                    }
+                }
+            }
+            
+            int v = decodabets[src.get(si++) & 0xFF];
+            if (v >= 0) {
+                bits = bits << 6 | v;
+                
+                if (++n == 4) {
+                    if (dend - di < 3) {
+                        result = CoderResult.OVERFLOW;
+                        break;
+                    }
+                    
+                    dst.put(di++, (byte)(bits >> 16));
+                    dst.put(di++, (byte)(bits >> 8));
+                    dst.put(di++, (byte)bits);
+                    bits = n = 0;
+                }
+            }
+        }
+        
+        if (n > 0) {
+            if (result == CoderResult.UNDERFLOW && endOfInput && dend - di >= n - 1) {
+                // A single remaining character is not enough to make up a byte
+                if (n == 2) {
+                    dst.put(di++, (byte)(bits >> 4));
+                } else if (n == 3) {
+                    dst.put(di++, (byte)(bits >> 10));
+                    dst.put(di++, (byte)(bits >> 2));
+                }
+            } else {
+                // Incomplete block is left in source
+                if (endOfInput) {
+                    result = CoderResult.OVERFLOW;
+                }
+                si = start;
+            }
+        }
+        
+        src.position(si);
+        dst.position(di);
+        return result;
+    }
+    
+    /**
+     * Decode complete blocks of 4 characters between buffers,
+     * stop at the first block containing any unmappable byte (paddings, line breaks, etc).
+     * 
+     * @param src source buffer
+     * @param soffset source index
+     * @param send source end index (exclusive), trailing incomplete block is not processed
+     * @param dst destination buffer, must have room for 3 bytes per block
+     * @param doffset destination index
+     * @param convertor target convertor
+     * @return source index where decoding stopped
+     */
+    private static int decodeGroups(
+            ByteBuffer src, int soffset, int send, ByteBuffer dst, int doffset, Convertor convertor
+    ) {
+        if (src.hasArray() && dst.hasArray()) {
+            int sbase = src.arrayOffset(), dbase = dst.arrayOffset();
+            byte[] sa = src.array(), da = dst.array();
+            return decodeGroups(sa, sbase + soffset, sbase + send, da, dbase + doffset, convertor) - sbase;
+        }
+        
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        boolean srcBigEndian = src.order() == ByteOrder.BIG_ENDIAN, dstBigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+        
+        int si = soffset, di = doffset;
+        
+        // 2 blocks at a time, 8 characters read & 6 bytes written with 2 accesses
+        for (int gend = send - 7; si < gend; si += 8) {
+            long c = src.getLong(si);
+            if (!srcBigEndian) {
+                c = Long.reverseBytes(c);
+            }
+            
+            int v0 = decodeBlock((int)(c >>> 32), decodabets), v1 = decodeBlock((int)c, decodabets);
+            if ((v0 | v1) < 0) {
+                break;
+            }
+            
+            int high = v0 << 8 | v1 >>> 16;
+            short low = (short)v1;
+            dst.putInt(di, dstBigEndian? high : Integer.reverseBytes(high));
+            dst.putShort(di + 4, dstBigEndian? low : Short.reverseBytes(low));
+            di += 6;
+        }
+        
+        for (int gend = send - 3; si < gend; si += 4) {
+            int c = src.getInt(si);
+            int v = decodeBlock(srcBigEndian? c : Integer.reverseBytes(c), decodabets);
+            
+            if (v < 0) {
+                break;
+            }
+            
+            dst.put(di++, (byte)(v >> 16));
+            dst.put(di++, (byte)(v >> 8));
+            dst.put(di++, (byte)v);
+        }
+        return si;
+    }
+    
+    /**
+     * Decode a block of 4 characters packed in big endian order
+     * 
+     * @param c packed characters
+     * @param decodabets decoding table
+     * @return decoded 24bit value, negative if any character is unmappable
+     */
+    private static int decodeBlock(int c, byte[] decodabets) {
+        // Any unmappable byte makes the whole value negative
+        return decodabets[c >>> 24] << 18 | decodabets[c >>> 16 & 0xFF] << 12
+                | decodabets[c >>> 8 & 0xFF] << 6 | decodabets[c & 0xFF];
+    }
+    
+    /**
+     * Decode bytes(Base64) directly into the destination array in a single pass,
+     * unmappable bytes are skipped.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param length number of byte to decode
+     * @param dest destination bytes
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @return next destination offset
+     */
+    private static int decodeBytes(byte[] src, int soffset, int length, byte[] dest, int doffset, Convertor convertor) {
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        int end = soffset + length;
+        
+        int si = soffset, di = doffset;
+        int bits = 0, n = 0;
+        while (si < end) {
+            // Unmappable bytes between blocks (line breaks) are skipped below without restarting block decoding
+            if (n == 0 && decodabets[src[si] & 0xFF] >= 0) {
+                // Decode as many complete blocks as the destination can hold
+                int send = si + Math.min(end - si, (dest.length - di) / 3 * 4);
+                int se = decodeGroups(src, si, send, dest, di, convertor);
+                
+                di += (se - si) / 4 * 3;
+                si = se;
+                
+                if (si == end) {
+                    break;
+                }
+            }
+            
+            int v = decodabets[src[si++] & 0xFF];
+            if (v >= 0) {
+                bits = bits << 6 | v;
+                
+                if (++n == 4) {
+                    if (di + 3 > dest.length) {
+                        throw new IndexOutOfBoundsException("Destination too small!");
+                    }
+                    
+                    dest[di++] = (byte)(bits >> 16);
+                    dest[di++] = (byte)(bits >> 8);
+                    dest[di++] = (byte)bits;
+                    bits = n = 0;
+                }
+            }
+        }
+        
+        return decodeTail(bits, n, dest, di);
+    }
+    
+    /**
+     * Decode complete blocks of 4 characters,
+     * stop at the first block containing any unmappable byte (paddings, line breaks, etc).
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive), trailing incomplete block is not processed
+     * @param dest destination bytes, must have room for 3 bytes per block
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @return source offset where decoding stopped
+     */
+    private static int decodeGroups(byte[] src, int soffset, int send, byte[] dest, int doffset, Convertor convertor) {
+        return decodeGroups(src, soffset, send, dest, doffset, convertor, Base64Backends.getBackend(convertor));
+    }
+    
+    /**
+     * Decode complete blocks of 4 characters with the backend,
+     * blocks left by the backend are decoded by the scalar code.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive), trailing incomplete block is not processed
+     * @param dest destination bytes, must have room for 3 bytes per block
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @param backend codec backend
+     * @return source offset where decoding stopped
+     */
+    static int decodeGroups(
+            byte[] src, int soffset, int send, byte[] dest, int doffset, Convertor convertor, Base64Backend backend
+    ) {
+        int si = backend.decode(src, soffset, send, dest, doffset, convertor);
+        int di = doffset + (si - soffset) / 4 * 3;
+        
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        for (int gend = send - 3; si < gend; ) {
+            // Any unmappable byte makes the whole value negative
+            int v = decodabets[src[si] & 0xFF] << 18 | decodabets[src[si + 1] & 0xFF] << 12
+                    | decodabets[src[si + 2] & 0xFF] << 6 | decodabets[src[si + 3] & 0xFF];
+            
+            if (v < 0) {
+                break;
+            }
+            
+            dest[di++] = (byte)(v >> 16);
+            dest[di++] = (byte)(v >> 8);
+            dest[di++] = (byte)v;
+            si += 4;
+        }
+        return si;
+    }
+    
+    /**
+     * Decode the final incomplete block (less than 4 characters)
+     * 
+     * @param bits accumulated 6bit values
+     * @param n number of accumulated values (0 ~ 3)
+     * @param dest destination bytes
+     * @param doffset destination offset
+     * @return next destination offset
+     */
+    private static int decodeTail(int bits, int n, byte[] dest, int doffset) {
+        int di = doffset;
+        
+        // A single remaining character is not enough to make up a byte
+        if (n > 1) {
+            if (di + n - 1 > dest.length) {
+                throw new IndexOutOfBoundsException("Destination too small!");
+            }
+            
+            if (n == 2) {
+                dest[di++] = (byte)(bits >> 4);
+            } else {
+                dest[di++] = (byte)(bits >> 10);
+                dest[di++] = (byte)(bits >> 2);
+            }
+        }
+        
+        return di;
+    }
+    
+    /**
+     * Lenient decoding state of a stream decoded block by block,
+     * the incomplete block at the end of each block is carried over to the next one.
+     */
+    static final class StreamDecoder {
+        private final Convertor convertor;
+        
+        /**
+         * Carried over 6bit values & number of them (0 ~ 3)
+         */
+        private int bits, n;
+        
+        StreamDecoder(Convertor convertor) {
+            this.convertor = convertor;
+        }
+        
+        /**
+         * Decode a block, unmappable bytes are skipped
+         * 
+         * @param src source bytes
+         * @param soffset source offset
+         * @param send source end offset (exclusive)
+         * @param dest destination bytes, must have room for maxDecodedLength(send - soffset) + 3 bytes
+         * @param doffset destination offset
+         * @return next destination offset
+         */
+        int decode(byte[] src, int soffset, int send, byte[] dest, int doffset) {
+            byte[] decodabets = convertor.BYTE_DECODABETS;
+            
+            int si = soffset, di = doffset;
+            while (si < send) {
+                if (n == 0 && decodabets[src[si] & 0xFF] >= 0) {
+                    int se = decodeGroups(src, si, send, dest, di, convertor);
+                    
+                    di += (se - si) / 4 * 3;
+                    si = se;
+                    
+                    if (si == send) {
+                        break;
+                    }
+                }
+                
+                /*
+                 * Ignored any unmappable character
+                 * If there is any unmappable character(except padding, CRLF)
+                 * input data may be corrupted or a wrong convertor is used!
+                 */
+                int v = decodabets[src[si++] & 0xFF];
+                if (v >= 0) {
+                    bits = bits << 6 | v;
+                    
+                    if (++n == 4) {
+                        dest[di++] = (byte)(bits >> 16);
+                        dest[di++] = (byte)(bits >> 8);
+                        dest[di++] = (byte)bits;
+                        bits = n = 0;
+                    }
+                }
+            }
+            return di;
+        }
+        
+        /**
+         * Decode the carried over incomplete block at the end of stream
+         * 
+         * @param dest destination bytes, must have room for 2 bytes
+         * @param doffset destination offset
+         * @return next destination offset
+         */
+        int finish(byte[] dest, int doffset) {
+            int di = decodeTail(bits, n, dest, doffset);
+            
+            bits = n = 0;
+            return di;
+        }
+        
+        /**
+         * @return number of carried over 6bit values (0 ~ 3), 0 when decoding is on block boundary
+         */
+        int pending() {
+            return n;
+        }
+        
+        /**
+         * Discard the carried over incomplete block
+         */
+        void reset() {
+            bits = n = 0;
+        }
+    }
+    
+    /**
+     * Decode encoded characters to its original binary bytes
+     * 
+     * @param chars encoded characters
+     * @param convertor target convertor
+     * @return original binary bytes
+     */
+    public static byte[] decode(char[] chars, Convertor convertor) {
+        // Trailing paddings & line breaks never produce output, exclude them from the estimation
+        int l = chars.length;
+        while (l > 0 && !convertor.isEncodedChar(chars[l - 1])) {
+            l--;
+        }
+        
+        byte[] output = new byte[maxDecodedLength(l)];
+        
+        int c = decodeChars(chars, 0, l, output, 0, convertor);
+        
+        return (c == output.length)? output : Arrays.copyOf(output, c);
+    }
+    
+    /**
+     * Decode characters directly into the destination bytes, no intermediate array is allocated.
+     * Any unmappable character (paddings, line breaks, characters beyond ISO-8859-1, etc) is ignored.
+     * 
+     * @param src source characters
+     * @param soffset source offset
+     * @param length number of characters to decode
+     * @param dest destination bytes, must have room for maxDecodedLength(length) bytes
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @return next destination offset
+     */
+    private static int decodeChars(char[] src, int soffset, int length, byte[] dest, int doffset, Convertor convertor) {
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        int end = soffset + length;
+        
+        int si = soffset, di = doffset;
+        int bits = 0, n = 0;
+        while (si < end) {
+            // Complete blocks of mappable characters at once, any negative value makes the block negative
+            for (; n == 0 && si < end - 3; si += 4) {
+                char c0 = src[si], c1 = src[si + 1], c2 = src[si + 2], c3 = src[si + 3];
+                if ((c0 | c1 | c2 | c3) >= 256) {
+                    break;
+                }
+                
+                int v = decodabets[c0] << 18 | decodabets[c1] << 12 | decodabets[c2] << 6 | decodabets[c3];
+                if (v < 0) {
+                    break;
+                }
+                
+                dest[di++] = (byte)(v >> 16);
+                dest[di++] = (byte)(v >> 8);
+                dest[di++] = (byte)v;
+            }
+            
+            if (si == end) {
+                break;
+            }
+            
+            char c = src[si++];
+            int v = (c < 256)? decodabets[c] : -9;
+            if (v >= 0) {
+                bits = bits << 6 | v;
+                
+                if (++n == 4) {
+                    dest[di++] = (byte)(bits >> 16);
+                    dest[di++] = (byte)(bits >> 8);
+                    dest[di++] = (byte)bits;
+                    bits = n = 0;
+                }
+            }
+        }
+        
+        return decodeTail(bits, n, dest, di);
+    }
+
+    /**
+     * Suggest base64 convertor by detecting special character within encoded string
+     * If no distinguishable character is found, suggest standard convertor
+     * 
+     * MY & ORDERED convertor will be ignored, since they may cause issues
+     * 
+     * @param base64String encoded base64 string
+     *
+     * @return suggested convertor, default STANDARD
+     */
+    public static Convertor suggestConvertor(String base64String) {
+        for (int i = 0; i < base64String.length(); i++) {
+            char ch = base64String.charAt(i);
+            
+            // Only suggest standard and url safe convertor
+            switch (ch) {
+                case '+':
+                case '/':
+                    return Convertor.STANDARD;
+                case '-':
+                case '_':
+                    return Convertor.URL_SAFE;
+            }
+        }
+        
+        // No distinguishable character found, suggest standard
+        // Assuming input contains no invalid character, since this method is not for validation
+        return Convertor.STANDARD;
+    }
+
+    /**
+     * Decode base64 encoded string with suggested convertor
+     * 
+     * @param base64String encoded base64 string
+     * 
+     * @return decoded bytes
+     */
+    public static byte[] decode(String base64String) {
+        // Characters beyond ISO-8859-1 become '?', which is unmappable & not distinguishable as well
+        return decodeSuggested(base64String.getBytes(StandardCharsets.ISO_8859_1));
+    }
+    
+    /**
+     * Decode bytes(Base64) with suggested convertor in a single pass, same result as
+     * decoding with the convertor suggested by {@link #suggestConvertor(String)}<br><br>
+     * 
+     * Standard & url safe convertors differ in their distinguishable characters only.
+     * Until the first distinguishable character, bytes are decoded with both alphabets combined,
+     * then the convertor it suggests takes over, so no byte is read twice.
+     * 
+     * @param src source bytes
+     * @return original binary bytes
+     */
+    private static byte[] decodeSuggested(byte[] src) {
+        byte[] standard = Convertor.STANDARD.BYTE_DECODABETS, urlSafe = Convertor.URL_SAFE.BYTE_DECODABETS;
+        
+        // Trailing paddings & line breaks never produce output, exclude them from the estimation
+        int end = src.length;
+        while (end > 0 && _SUGGESTED_DECODE[src[end - 1] & 0xFF] < 0) {
+            end--;
+        }
+        
+        byte[] dest = new byte[maxDecodedLength(end)];
+        
+        // Not suggested yet, without distinguishable character both convertors give the same result
+        Convertor convertor = null;
+        byte[] decodabets = _SUGGESTED_DECODE;
+        
+        int si = 0, di = 0;
+        int bits = 0, n = 0;
+        while (si < end) {
+            if (convertor != null && n == 0 && decodabets[src[si] & 0xFF] >= 0) {
+                int se = decodeGroups(src, si, end, dest, di, convertor);
+                
+                di += (se - si) / 4 * 3;
+                si = se;
+                
+                if (si == end) {
+                    break;
+                }
+            }
+            
+            byte b = src[si++];
+            int v = decodabets[b & 0xFF];
+            
+            if (convertor == null && v >= 0 && (standard[b & 0xFF] < 0 || urlSafe[b & 0xFF] < 0)) {
+                // First distinguishable character suggests the convertor
+                convertor = (standard[b & 0xFF] >= 0)? Convertor.STANDARD : Convertor.URL_SAFE;
+                decodabets = convertor.BYTE_DECODABETS;
+            }
+            
+            if (v >= 0) {
+                bits = bits << 6 | v;
+                
+                if (++n == 4) {
+                    dest[di++] = (byte)(bits >> 16);
+                    dest[di++] = (byte)(bits >> 8);
+                    dest[di++] = (byte)bits;
+                    bits = n = 0;
+                }
+            }
+        }
+        
+        di = decodeTail(bits, n, dest, di);
+        
+        return (di == dest.length)? dest : Arrays.copyOf(dest, di);
+    }
+    
+    /**
+     * Decode encoded string to its original binary bytes
+     * 
+     * @param base64String base64 encoded string
+     * @param convertor target convertor
+     * @return original binary bytes
+     */
+    public static byte[] decode(String base64String, Convertor convertor) {
+        // Bulk extraction of compact Latin-1 string, characters beyond ISO-8859-1 become '?' (unmappable)
+        return decode(base64String.getBytes(StandardCharsets.ISO_8859_1), convertor);
+    }
+    
+    /**
+     * @param src source (character mapped)
+     * @param dest destination
+     * @param soffset source offset
+     * @param doffset destination offset
+     * @param len length (1 ~ 4)
+     */
+    private static void shiftDecode(byte[] src, byte[] dest, int soffset, int doffset, int len) {
+        int v1 = src[soffset], v2 = 0, v3 = 0, v4 = 0;
+        if (len == 1) {
+            if (doffset < dest.length) {
+                dest[doffset] = (byte)(v1 << 2);
+            }
+        } else {
+            v2 = src[soffset+1];
+            dest[doffset] = (byte)((v1 << 2) | (v2 >> 4 & 0x3));
+            
+            if (len == 2) {
+                if (doffset + 1 < dest.length) {
+                    dest[doffset + 1] = (byte)((v2 & 0xF) << 4);
+                }
+            } else {
+                v3 = src[soffset+2];
+                dest[doffset + 1] = (byte)(((v2 & 0xF) << 4) | ((v3 >> 2) & 0xF));
                 
-                if (c == bytes.length) {
-                    os.write(shiftDecode(bytes, c));
-                    c = 0;
+                if (len == 3) {
+                    if (doffset + 2 < dest.length) {
+                        dest[doffset + 2] = (byte) ((v3 & 0x3) << 6);
+                    }
+                } else {
+                    v4 = src[soffset+3];
+                    dest[doffset + 2] = (byte)(((v3 & 0x3) << 6) | (v4 & 0x3F));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Convert 6bit encoded bytes to 8bit bytes
+     * 
+     * @param bytes source (character mapped)
+     * @param len length of byte to decode
+     * @return decoded data
+     */
+    public static byte[] shiftDecode(byte[] bytes, int len) {
+        byte[] output = new byte[(int)Math.floor(len * 6 / 8.0)];
+        
+        int si = 0, di = 0;
+        while (si < len) {
+            if (si + 4 < len) {
+                shiftDecode(bytes, output, si, di, 4);
+            } else {
+                shiftDecode(bytes, output, si, di, len - si);
+            }
+            si += 4;
+            di += 3;
+        }
+        
+        return output;
+    }
+
+    /**
+     * Decode input stream data(Base64 encoded) to byte array
+     * 
+     * @param is input stream
+     * @param convertor target convertor
+     * @param closeStream close input stream after decoding
+     * @return decoded bytes
+     * @throws IOException
+     */
+    public static byte[] decode(InputStream is, Convertor convertor, boolean closeStream) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        decode(is, bos, convertor, closeStream);
+        bos.close();
+        return bos.toByteArray();
+    }
+
+    /**
+     * Decode input stream data(Base64 encoded) and output the result directly
+     * 
+     * @param is input stream
+     * @param os output stream
+     * @param convertor target convertor
+     * @param closeStream close both input & output stream after decoding
+     * @throws IOException
+     */
+    public static void decode(InputStream is, OutputStream os, Convertor convertor, boolean closeStream) 
+            throws IOException {
+        StreamDecoder decoder = new StreamDecoder(convertor);
+        Base64BufferPool pool = Base64BufferPools.getDefault();
+        byte[] bytes = pool.acquire(DECODE_BLOCK_SIZE);
+        // Bytes carried over from previous block may complete one more block
+        byte[] output = pool.acquire(maxDecodedLength(bytes.length) + 3);
+        
+        try {
+            int r;
+            while ((r = is.read(bytes, 0, bytes.length)) != -1) {
+                int di = decoder.decode(bytes, 0, r, output, 0);
+                if (di > 0) {
+                    os.write(output, 0, di);
                 }
             }
-            iby = is.read();
+            
+            int di = decoder.finish(output, 0);
+            if (di > 0) {
+                os.write(output, 0, di);
+            }
+        } finally {
+            pool.release(bytes);
+            pool.release(output);
+        }
+        
+        os.flush();
+        
+        if (closeStream) {
+            is.close();
+            os.close();
+        }
+    }
+    
+    /**
+     * Decode encoded file and output the result to a file directly
+     * 
+     * @param input input file
+     * @param output output file
+     * @param convertor target convertor
+     * @throws IOException
+     */
+    public static void decodeFileToFile(File input, File output, Convertor convertor) throws IOException {
+        try (
+            FileChannel ic = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+            FileChannel oc = FileChannel.open(
+                output.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE
+            )
+        ) {
+            // Output size is only known after counting the mappable characters
+            long size = ic.size(), decodedSize = decodedLength(countEncodedChars(ic, convertor));
+            
+            // Decoded between mapped windows directly, incomplete block at the end of a window is mapped again
+            long ip = 0, op = 0;
+            MappedByteBuffer in = map(ic, FileChannel.MapMode.READ_ONLY, ip, size);
+            MappedByteBuffer out = map(oc, FileChannel.MapMode.READ_WRITE, op, decodedSize);
+            while (true) {
+                boolean endOfInput = ip + in.limit() == size;
+                CoderResult result = decode(in, out, convertor, endOfInput);
+                
+                if (result.isOverflow()) {
+                    op += out.position();
+                    out = map(oc, FileChannel.MapMode.READ_WRITE, op, decodedSize);
+                } else if (endOfInput) {
+                    break;
+                } else {
+                    ip += in.position();
+                    in = map(ic, FileChannel.MapMode.READ_ONLY, ip, size);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Decode encoded file and output the result to a file directly
+     * 
+     * @param input input file path
+     * @param output output file path
+     * @param convertor target convertor 
+     * @throws IOException
+     */
+    public static void decodeFileToFile(String input, String output, Convertor convertor) throws IOException {
+        decodeFileToFile(new File(input), new File(output), convertor);
+    }
+    
+    /**
+     * Count the number of mappable characters of the file, window by window
+     * 
+     * @param channel file channel
+     * @param convertor target convertor
+     * @return number of mappable characters
+     * @throws IOException
+     */
+    private static long countEncodedChars(FileChannel channel, Convertor convertor) throws IOException {
+        byte[] decodabets = convertor.BYTE_DECODABETS;
+        long size = channel.size();
+        
+        long count = 0;
+        for (long position = 0; position < size; ) {
+            MappedByteBuffer window = map(channel, FileChannel.MapMode.READ_ONLY, position, size);
+            for (int i = 0, l = window.limit(); i < l; i++) {
+                // Sign bit is set for unmappable byte
+                count += ~decodabets[window.get(i) & 0xFF] >>> 31;
+            }
+            position += window.limit();
+        }
+        return count;
+    }
+    
+    /**
+     * Map a window of the file from the position, files larger than 2GB are mapped window by window
+     * 
+     * @param channel file channel
+     * @param mode map mode, the file is extended to the size when READ_WRITE
+     * @param position window position
+     * @param size size of the whole file
+     * @return mapped window, at most MAP_WINDOW_SIZE bytes
+     * @throws IOException
+     */
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        return channel.map(mode, position, Math.min(MAP_WINDOW_SIZE, size - position));
+    }
+
+    /**
+     * Encode binary bytes to base64 with defaults: Standard convertor, not chunked, with padding
+     * 
+     * @param bytes source binary bytes
+     * 
+     * @return encoded bytes
+     */
+    public static byte[] encode(byte[] bytes) {
+        return encode(bytes, Convertor.STANDARD, false, true);
+    }
+    
+    /**
+     * Encode binary bytes to Base64
+     * 
+     * @param bytes source binary bytes
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded bytes
+     */
+    public static byte[] encode(byte[] bytes, Convertor convertor, boolean chunked, boolean padding) {
+        return encode(bytes, convertor, 0, bytes.length, chunked, padding);
+    }
+    
+    /**
+     * Encode binary bytes to Base64
+     * 
+     * @param bytes bytes source binary bytes
+     * @param convertor target convertor
+     * @param offset starting offset
+     * @param length number of byte to encode
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded bytes
+     */
+    public static byte[] encode(
+            byte[] bytes, Convertor convertor, int offset, int length, boolean chunked, boolean padding
+    ) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        byte[] output = new byte[encodedLength(length, chunked, padding)];
+        
+        encodeBytes(bytes, offset, length, output, 0, convertor, chunked, padding);
+        
+        return output;
+    }
+    
+    /**
+     * Encode binary bytes to Base64 in parallel with the common fork join pool
+     * 
+     * @param bytes source binary bytes
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded bytes, identical to sequential encoding
+     */
+    public static byte[] encodeParallel(byte[] bytes, Convertor convertor, boolean chunked, boolean padding) {
+        return encodeParallel(
+            bytes, convertor, chunked, padding, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD
+        );
+    }
+    
+    /**
+     * Encode binary bytes to Base64 in parallel.<br>
+     * Input is split on block boundaries (3 bytes, or a full line of 57 bytes when chunked),
+     * each slice is encoded into its own region of a shared presized output.
+     * 
+     * @param bytes source binary bytes
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @param pool fork join pool executing the encoding
+     * @param threshold input smaller than this is encoded sequentially, also the minimum slice size
+     * @return encoded bytes, identical to sequential encoding
+     */
+    public static byte[] encodeParallel(
+            byte[] bytes, Convertor convertor, boolean chunked, boolean padding, ForkJoinPool pool, int threshold
+    ) {
+        if (bytes.length < threshold || pool.getParallelism() < 2) {
+            return encode(bytes, convertor, chunked, padding);
         }
         
-        if (c != 0) {
-            os.write(shiftDecode(bytes, c));
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
         }
         
-        os.flush();
+        byte[] output = new byte[encodedLength(bytes.length, chunked, padding)];
         
-        if (closeStream) {
-            is.close();
-            os.close();
-        }
+        int unit = chunked? CHUNK_BYTES : 3;
+        // Few slices per worker for load balancing
+        int sliceSize = Math.max(Math.max(threshold, unit), bytes.length / (pool.getParallelism() * 4));
+        sliceSize += unit - 1 - (sliceSize - 1) % unit;
+        
+        pool.invoke(new EncodeTask(bytes, 0, bytes.length, output, convertor, chunked, padding, sliceSize));
+        
+        return output;
     }
     
     /**
-     * Decode encoded file and output the result to a file directly
+     * Calculate the exact length of encoded data
      * 
-     * @param input input file
-     * @param output output file
+     * @param length number of binary bytes to encode
      * @param convertor target convertor
-     * @throws IOException
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded length
      */
-    public static void decodeFileToFile(File input, File output, Convertor convertor) throws IOException {
-        decode(
-                new BufferedInputStream(new FileInputStream(input)),
-                new BufferedOutputStream(new FileOutputStream(output)),
-                convertor, true
-        );
+    public static int encodedLength(int length, Convertor convertor, boolean chunked, boolean padding) {
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        return encodedLength(length, chunked, padding);
     }
     
     /**
-     * Decode encoded file and output the result to a file directly
+     * @param length number of binary bytes to encode
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded length
+     */
+    private static int encodedLength(int length, boolean chunked, boolean padding) {
+        long l = encodedLength((long)length, chunked, padding);
+        
+        if (l > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Encoded length exceeds array size limit: " + l);
+        }
+        
+        return (int)l;
+    }
+    
+    /**
+     * @param length number of binary bytes to encode
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return encoded length
+     */
+    private static long encodedLength(long length, boolean chunked, boolean padding) {
+        long l = length / 3 * 4;
+        int r = (int)(length % 3);
+        
+        if (r > 0) {
+            l += padding? 4 : r + 1;
+        }
+        
+        // Line breaks are placed between lines only, never after the last line
+        if (chunked && l > 0) {
+            l += (l - 1) / CHUNK_SIZE * LINE_BREAK_BYTES.length;
+        }
+        
+        return l;
+    }
+    
+    /**
+     * Number of encoded characters before the position of encoded data, line breaks excluded
      * 
-     * @param input input file path
-     * @param output output file path
-     * @param convertor target convertor 
-     * @throws IOException
+     * @param position position of encoded data (as laid out by encode)
+     * @param chunked encoded data is chunked
+     * @return number of encoded characters
      */
-    public static void decodeFileToFile(String input, String output, Convertor convertor) throws IOException {
-        decode(
-                new BufferedInputStream(new FileInputStream(input)),
-                new BufferedOutputStream(new FileOutputStream(output)),
-                convertor, true
-        );
+    static long charsBefore(long position, boolean chunked) {
+        if (!chunked) {
+            return position;
+        }
+        
+        long line = CHUNK_SIZE + LINE_BREAK_BYTES.length;
+        return position / line * CHUNK_SIZE + Math.min(position % line, CHUNK_SIZE);
+    }
+    
+    /**
+     * Position of the encoded character in encoded data, a character starting a line is placed after the line break
+     * 
+     * @param chars number of encoded characters before, line breaks excluded
+     * @param chunked encoded data is chunked
+     * @return position of encoded data (as laid out by encode)
+     */
+    static long positionOf(long chars, boolean chunked) {
+        if (!chunked) {
+            return chars;
+        }
+        
+        return chars / CHUNK_SIZE * (CHUNK_SIZE + LINE_BREAK_BYTES.length) + chars % CHUNK_SIZE;
     }
 
     /**
-     * Encode binary bytes to base64 with defaults: Standard convertor, not chunked, with padding
+     * Encode binary bytes into the provided destination bytes
+     * with defaults: Standard convertor, not chunked, with padding
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     */
+    public static int encode(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        return encode(src, srcOff, srcLen, dst, dstOff, Convertor.STANDARD, false, true);
+    }
+    
+    /**
+     * Encode binary bytes into the provided destination bytes, no intermediate array is allocated.
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid or destination is too small
+     * 
+     * @see #encodedLength(int, Convertor, boolean, boolean)
+     */
+    public static int encode(
+            byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff,
+            Convertor convertor, boolean chunked, boolean padding
+    ) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen || dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        if (encodedLength(srcLen, chunked, padding) > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        return encodeBytes(src, srcOff, srcLen, dst, dstOff, convertor, chunked, padding) - dstOff;
+    }
+    
+    /**
+     * Encode binary bytes from the source buffer into the destination buffer
+     * with defaults: Standard convertor, with padding, source is the end of input
+     * 
+     * @param src source buffer
+     * @param dst destination buffer
+     * @return CoderResult.UNDERFLOW when source is consumed, CoderResult.OVERFLOW when destination is full
+     * 
+     * @see #encode(ByteBuffer, ByteBuffer, Convertor, boolean, boolean)
+     */
+    public static CoderResult encode(ByteBuffer src, ByteBuffer dst) {
+        return encode(src, dst, Convertor.STANDARD, true, true);
+    }
+    
+    /**
+     * Encode binary bytes from the source buffer into the destination buffer (not chunked),
+     * as much as the destination can hold, in the manner of CharsetEncoder.<br>
+     * Positions of both buffers are advanced, heap & direct buffers are accessed in place.<br><br>
+     * 
+     * When more input may follow, the trailing 1 ~ 2 bytes of an incomplete block are left in source,
+     * to be encoded with the following input after the source is compacted & refilled.
+     * 
+     * @param src source buffer
+     * @param dst destination buffer
+     * @param convertor target convertor
+     * @param padding result should be padded (=)
+     * @param endOfInput no more input follows the source, the final incomplete block is encoded
+     * @return CoderResult.UNDERFLOW when source is consumed (except an incomplete block left for more input),
+     *         CoderResult.OVERFLOW when destination has no room for the next block
+     */
+    public static CoderResult encode(
+            ByteBuffer src, ByteBuffer dst, Convertor convertor, boolean padding, boolean endOfInput
+    ) {
+        // Simply ignore padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            padding = false;
+        }
+        
+        int si = src.position(), di = dst.position();
+        int blocks = Math.min((src.limit() - si) / 3, (dst.limit() - di) / 4);
+        
+        di = encodeGroups(src, si, si + blocks * 3, dst, di, convertor);
+        si += blocks * 3;
+        
+        int remaining = src.limit() - si;
+        CoderResult result = CoderResult.UNDERFLOW;
+        if (remaining >= 3) {
+            result = CoderResult.OVERFLOW;
+        } else if (remaining > 0 && endOfInput) {
+            if (dst.limit() - di < (padding? 4 : remaining + 1)) {
+                result = CoderResult.OVERFLOW;
+            } else {
+                byte[] tail = new byte[3], encoded = new byte[4];
+                src.get(si, tail, 0, remaining);
+                
+                int l = encodeTail(tail, 0, remaining, encoded, 0, convertor.ALPHABETS, padding);
+                dst.put(di, encoded, 0, l);
+                si += remaining;
+                di += l;
+            }
+        }
+        
+        src.position(si);
+        dst.position(di);
+        return result;
+    }
+    
+    /**
+     * Encode complete blocks of 3 bytes between buffers
+     * 
+     * @param src source buffer
+     * @param soffset source index
+     * @param send source end index (exclusive), (send - soffset) must be multiple of 3
+     * @param dst destination buffer, must have room for 4 bytes per block
+     * @param doffset destination index
+     * @param convertor target convertor
+     * @return next destination index
+     */
+    private static int encodeGroups(
+            ByteBuffer src, int soffset, int send, ByteBuffer dst, int doffset, Convertor convertor
+    ) {
+        if (src.hasArray() && dst.hasArray()) {
+            int sbase = src.arrayOffset(), dbase = dst.arrayOffset();
+            byte[] sa = src.array(), da = dst.array();
+            return encodeGroups(sa, sbase + soffset, sbase + send, da, dbase + doffset, convertor) - dbase;
+        }
+        
+        byte[] alphabets = convertor.ALPHABETS;
+        boolean srcBigEndian = src.order() == ByteOrder.BIG_ENDIAN, dstBigEndian = dst.order() == ByteOrder.BIG_ENDIAN;
+        
+        int si = soffset, di = doffset;
+        
+        // 2 blocks at a time, 8 bytes read (2 beyond the blocks, within source limit) & 8 characters written
+        for (int gend = Math.min(send - 5, src.limit() - 7); si < gend; si += 6) {
+            long v = src.getLong(si);
+            if (!srcBigEndian) {
+                v = Long.reverseBytes(v);
+            }
+            
+            long c = (long)encodeBlock((int)(v >>> 40), alphabets) << 32
+                    | encodeBlock((int)(v >>> 16) & 0xFFFFFF, alphabets) & 0xFFFFFFFFL;
+            dst.putLong(di, dstBigEndian? c : Long.reverseBytes(c));
+            di += 8;
+        }
+        
+        for (; si < send; si += 3) {
+            int v = (src.get(si) & 0xFF) << 16 | (src.get(si + 1) & 0xFF) << 8 | src.get(si + 2) & 0xFF;
+            int c = encodeBlock(v, alphabets);
+            
+            dst.putInt(di, dstBigEndian? c : Integer.reverseBytes(c));
+            di += 4;
+        }
+        return di;
+    }
+    
+    /**
+     * Encode a block of 3 bytes into 4 characters packed in big endian order
+     * 
+     * @param v 24bit value of the block
+     * @param alphabets encoding table
+     * @return packed characters
+     */
+    private static int encodeBlock(int v, byte[] alphabets) {
+        return alphabets[v >>> 18] << 24 | alphabets[v >>> 12 & 0x3F] << 16
+                | alphabets[v >>> 6 & 0x3F] << 8 | alphabets[v & 0x3F];
+    }
+    
+    /**
+     * Encode binary bytes to base64 String, with defaults: Standard convertor, not chunked, with padding
      * 
      * @param bytes source binary bytes
      * 
-     * @return encoded bytes
+     * @return encoded base64 String
      */
-    public static byte[] encode(byte[] bytes) {
-        return encode(bytes, Convertor.STANDARD, false, true);
+    public static String encodeToString(byte[] bytes) {
+        return encodeToString(bytes, Convertor.STANDARD, false, true);
     }
     
     /**
-     * Encode binary bytes to Base64
+     * Encode binary bytes to Base64 String
      * 
      * @param bytes source binary bytes
      * @param convertor target convertor
      * @param chunked result should be chunked
      * @param padding result should be padded (=)
-     * @return encoded bytes
+     * @return encoded Base64 String
      */
-    public static byte[] encode(byte[] bytes, Convertor convertor, boolean chunked, boolean padding) {
-        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    public static String encodeToString(byte[] bytes, Convertor convertor, boolean chunked, boolean padding) {
+        // Encoded bytes are ASCII, taken as compact Latin-1 string without charset decoding
+        return new String(encode(bytes, convertor, chunked, padding), StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * Encode binary bytes directly into the provided destination characters, no intermediate array is allocated.
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param dst destination characters
+     * @param dstOff destination offset
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return number of characters written to destination
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid or destination is too small
+     * 
+     * @see #encodedLength(int, Convertor, boolean, boolean)
+     */
+    public static int encode(
+            byte[] src, int srcOff, int srcLen, char[] dst, int dstOff,
+            Convertor convertor, boolean chunked, boolean padding
+    ) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen || dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        if (encodedLength(srcLen, chunked, padding) > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        return encodeChars(src, srcOff, srcLen, dst, dstOff, convertor, chunked, padding) - dstOff;
+    }
+    
+    /**
+     * Encode binary bytes directly into the destination characters in a single pass,
+     * line breaks & paddings are placed inline.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param length number of byte to encode
+     * @param dest destination characters, must have room for encodedLength(length, chunked, padding) characters
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return next destination offset
+     */
+    private static int encodeChars(
+            byte[] src, int soffset, int length, char[] dest, int doffset,
+            Convertor convertor, boolean chunked, boolean padding
+    ) {
+        return encodeLines(src, soffset, length, null, dest, doffset, convertor, chunked, padding);
+    }
+    
+    /**
+     * Encode binary bytes & append the result to the Appendable (StringBuilder, Writer, etc) slice by slice,
+     * each slice is encoded into a pooled buffer first, no array of the whole result is allocated.
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param out Appendable to which the result is appended
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @param <T> type of the Appendable
+     * @return the Appendable
+     * @throws IOException thrown by the Appendable
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid
+     */
+    public static <T extends Appendable> T encode(
+            byte[] src, int srcOff, int srcLen, T out, Convertor convertor, boolean chunked, boolean padding
+    ) throws IOException {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen) {
+            throw new IndexOutOfBoundsException();
+        }
+        
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        Base64BufferPool pool = Base64BufferPools.getDefault();
+        byte[] output = pool.acquire(encodedLength(ENCODE_BLOCK_SIZE, chunked, padding) + LINE_BREAK_BYTES.length);
         
         try {
-            encode(bais, baos, convertor, chunked, padding, true);
-            return baos.toByteArray();
-        } catch (IOException iox) {
-            // No actual disk IO, will it occur??
-            return null;
+            AsciiSequence sequence = new AsciiSequence(output);
+            for (int offset = 0; offset < srcLen; offset += ENCODE_BLOCK_SIZE) {
+                int c = encodeSlice(src, srcOff, srcLen, offset, output, convertor, chunked, padding);
+                
+                out.append(sequence, 0, c);
+            }
+        } finally {
+            pool.release(output);
         }
+        
+        return out;
     }
     
     /**
-     * Encode binary bytes to Base64
+     * Encode a slice of ENCODE_BLOCK_SIZE bytes at most, slices except the last one end on a line boundary
      * 
-     * @param bytes bytes source binary bytes
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param offset slice offset relative to source offset, multiple of ENCODE_BLOCK_SIZE
+     * @param dest destination bytes, starting with the line break separating this slice from the previous one
      * @param convertor target convertor
-     * @param offset starting offset
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return number of bytes written to destination
+     */
+    private static int encodeSlice(
+            byte[] src, int srcOff, int srcLen, int offset, byte[] dest,
+            Convertor convertor, boolean chunked, boolean padding
+    ) {
+        int di = 0;
+        if (chunked && offset > 0) {
+            dest[di++] = LINE_BREAK_BYTES[0];
+            dest[di++] = LINE_BREAK_BYTES[1];
+        }
+        
+        int length = Math.min(ENCODE_BLOCK_SIZE, srcLen - offset);
+        return encodeBytes(src, srcOff + offset, length, dest, di, convertor, chunked, padding);
+    }
+    
+    /**
+     * Character view of encoded bytes (ASCII), appended to Appendable without copying to characters first
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private final byte[] bytes;
+        
+        AsciiSequence(byte[] bytes) {
+            this.bytes = bytes;
+        }
+        
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return (char)(bytes[index] & 0xFF);
+        }
+        
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+    
+    /**
+     * Encode binary bytes directly into the destination array in a single pass,
+     * line breaks & paddings are placed inline.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
      * @param length number of byte to encode
+     * @param dest destination bytes, must have room for encodedLength(length, chunked, padding) bytes
+     * @param doffset destination offset
+     * @param convertor target convertor
      * @param chunked result should be chunked
      * @param padding result should be padded (=)
-     * @return encoded bytes
+     * @return next destination offset
      */
-    public static byte[] encode(
-            byte[] bytes, Convertor convertor, int offset, int length, boolean chunked, boolean padding
+    private static int encodeBytes(
+            byte[] src, int soffset, int length, byte[] dest, int doffset,
+            Convertor convertor, boolean chunked, boolean padding
     ) {
-        byte[] targetBytes = new byte[length];
+        return encodeLines(src, soffset, length, dest, null, doffset, convertor, chunked, padding);
+    }
+    
+    /**
+     * Encode binary bytes into either destination bytes or characters in a single pass,
+     * line breaks & paddings are placed inline. Both destinations share the layout of this loop.
+     * 
+     * @param src source bytes
+     * @param soffset source offset
+     * @param length number of byte to encode
+     * @param dest destination bytes, null when encoding into characters
+     * @param chars destination characters, null when encoding into bytes
+     * @param doffset destination offset
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded (=)
+     * @return next destination offset
+     */
+    private static int encodeLines(
+            byte[] src, int soffset, int length, byte[] dest, char[] chars, int doffset,
+            Convertor convertor, boolean chunked, boolean padding
+    ) {
+        byte[] alphabets = convertor.ALPHABETS;
+        int end = soffset + length, groupEnd = end - length % 3;
+        int lineBytes = chunked? CHUNK_BYTES : Integer.MAX_VALUE;
         
-        System.arraycopy(bytes, offset, targetBytes, 0, length);
+        int si = soffset, di = doffset;
+        while (si < end) {
+            if (si > soffset) {
+                // Only reachable when chunked, a line has just been completed
+                di = put(LINE_BREAK_BYTES, LINE_BREAK_BYTES.length, dest, chars, di);
+            }
+            
+            int lineEnd = (end - si > lineBytes)? si + lineBytes : end;
+            int ge = (lineEnd < groupEnd)? lineEnd : groupEnd;
+            
+            if (dest != null) {
+                di = encodeGroups(src, si, ge, dest, di, convertor);
+            } else {
+                di = encodeGroups(src, si, ge, chars, di, alphabets);
+            }
+            si = ge;
+            
+            if (si < lineEnd) {
+                // Final incomplete block, encoded aside for characters
+                if (dest != null) {
+                    di = encodeTail(src, si, lineEnd - si, dest, di, alphabets, padding);
+                } else {
+                    byte[] tail = new byte[4];
+                    di = put(tail, encodeTail(src, si, lineEnd - si, tail, 0, alphabets, padding), null, chars, di);
+                }
+                si = lineEnd;
+            }
+        }
         
-        return encode(targetBytes, convertor, chunked, padding);
+        return di;
     }
-
+    
     /**
-     * Encode binary bytes to base64 String, with defaults: Standard convertor, not chunked, with padding
-     * 
-     * @param bytes source binary bytes
+     * Copy encoded bytes into either destination bytes or characters
      * 
-     * @return encoded base64 String
+     * @param bytes encoded bytes (ASCII)
+     * @param length number of bytes to copy
+     * @param dest destination bytes, null when copying into characters
+     * @param chars destination characters, null when copying into bytes
+     * @param doffset destination offset
+     * @return next destination offset
      */
-    public static String encodeToString(byte[] bytes) {
-        return encodeToString(bytes, Convertor.STANDARD, false, true);
+    private static int put(byte[] bytes, int length, byte[] dest, char[] chars, int doffset) {
+        if (dest != null) {
+            System.arraycopy(bytes, 0, dest, doffset, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[doffset + i] = (char)bytes[i];
+            }
+        }
+        return doffset + length;
     }
     
     /**
-     * Encode binary bytes to Base64 String
+     * Encode complete blocks of 3 bytes into characters
      * 
-     * @param bytes source binary bytes
-     * @param convertor target convertor
-     * @param chunked result should be chunked
-     * @param padding result should be padded (=)
-     * @return encoded Base64 String
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive), (send - soffset) must be multiple of 3
+     * @param dest destination characters
+     * @param doffset destination offset
+     * @param alphabets encoding table
+     * @return next destination offset
      */
-    public static String encodeToString(byte[] bytes, Convertor convertor, boolean chunked, boolean padding) {
-        return new String(encode(bytes, convertor, chunked, padding));
+    private static int encodeGroups(byte[] src, int soffset, int send, char[] dest, int doffset, byte[] alphabets) {
+        int di = doffset;
+        for (int si = soffset; si < send; si += 3) {
+            int bits = (src[si] & 0xFF) << 16 | (src[si + 1] & 0xFF) << 8 | (src[si + 2] & 0xFF);
+            
+            dest[di++] = (char)alphabets[bits >>> 18];
+            dest[di++] = (char)alphabets[bits >>> 12 & 0x3F];
+            dest[di++] = (char)alphabets[bits >>> 6 & 0x3F];
+            dest[di++] = (char)alphabets[bits & 0x3F];
+        }
+        return di;
     }
     
     /**
+     * Encode complete blocks of 3 bytes
      * 
      * @param src source bytes
-     * @param dest destination bytes
      * @param soffset source offset
+     * @param send source end offset (exclusive), (send - soffset) must be multiple of 3
+     * @param dest destination bytes
      * @param doffset destination offset
-     * @param len length (1 ~ 3)
      * @param convertor target convertor
+     * @return next destination offset
      */
-    private static void encode(byte[] src, byte[] dest, int soffset, int doffset, int len, Convertor convertor) {
-        dest[doffset] = convertor.encode(src[soffset] >> 2 & 0x3F);
-        
-        if (len == 1) {
-            dest[doffset + 1] = convertor.encode((src[soffset] & 0x3) << 4);
-        } else {
-            dest[doffset + 1] = convertor.encode((src[soffset] & 0x3) << 4 | (src[soffset + 1] >> 4 & 0xF));
-            
-            if (len == 2) {
-                dest[doffset + 2] = convertor.encode(src[soffset + 1] << 2 & 0x3C);
-            } else {
-                dest[doffset + 2] = convertor.encode(src[soffset + 1] << 2 & 0x3C | src[soffset + 2] >> 6 & 0x03);
-                dest[doffset + 3] = convertor.encode(src[soffset + 2] & 0x3F);
-            }
-        }
+    private static int encodeGroups(byte[] src, int soffset, int send, byte[] dest, int doffset, Convertor convertor) {
+        return encodeGroups(src, soffset, send, dest, doffset, convertor, Base64Backends.getBackend(convertor));
     }
     
     /**
+     * Encode complete blocks of 3 bytes with the backend,
+     * blocks left by the backend are encoded by the scalar code.
      * 
-     * @param bytes binary bytes
-     * @param len number of bytes to process, bytes exceeding this length is ignored
+     * @param src source bytes
+     * @param soffset source offset
+     * @param send source end offset (exclusive), (send - soffset) must be multiple of 3
+     * @param dest destination bytes
+     * @param doffset destination offset
      * @param convertor target convertor
-     * @return encoded bytes
+     * @param backend codec backend
+     * @return next destination offset
      */
-    private static byte[] encode(byte[] bytes, int len, Convertor convertor) {
-        byte[] output = new byte[(int)Math.ceil(len * 8 / 6.0)];
+    static int encodeGroups(
+            byte[] src, int soffset, int send, byte[] dest, int doffset, Convertor convertor, Base64Backend backend
+    ) {
+        byte[] alphabets = convertor.ALPHABETS;
+        int si = backend.encode(src, soffset, send, dest, doffset, convertor);
+        int di = doffset + (si - soffset) / 3 * 4;
         
-        int si = 0, di = 0;
-        while (si < len) {
-            encode(bytes, output, si, di, (si + 3 < len)? 3 : (len - si), convertor);
+        for (; si < send; si += 3) {
+            int bits = (src[si] & 0xFF) << 16 | (src[si + 1] & 0xFF) << 8 | (src[si + 2] & 0xFF);
             
-            si += 3;
-            di += 4;
+            dest[di++] = alphabets[bits >>> 18];
+            dest[di++] = alphabets[bits >>> 12 & 0x3F];
+            dest[di++] = alphabets[bits >>> 6 & 0x3F];
+            dest[di++] = alphabets[bits & 0x3F];
         }
-        
-        return output;
+        return di;
     }
     
     /**
+     * Encode the final incomplete block
      * 
-     * @param os output stream
-     * @param bytes data bytes
-     * @param offset data offset
-     * @param length length to write
-     * @return bytes written
-     * @throws IOException
+     * @param src source bytes
+     * @param soffset source offset
+     * @param len length (1 ~ 2)
+     * @param dest destination bytes
+     * @param doffset destination offset
+     * @param alphabets encoding table
+     * @param padding result should be padded (=)
+     * @return next destination offset
      */
-    private static int writeBytes(OutputStream os, byte[] bytes, int offset, int length) throws IOException {
-        int end = offset + length;
-        if (end < bytes.length) {
-            os.write(bytes, offset, length);
-            os.write(LINE_BREAK_BYTES);
-            return length;
+    private static int encodeTail(
+            byte[] src, int soffset, int len, byte[] dest, int doffset, byte[] alphabets, boolean padding
+    ) {
+        int di = doffset;
+        int b0 = src[soffset] & 0xFF;
+        
+        dest[di++] = alphabets[b0 >>> 2];
+        
+        if (len == 1) {
+            dest[di++] = alphabets[(b0 & 0x3) << 4];
+            
+            if (padding) {
+                dest[di++] = PADDING_BYTE;
+                dest[di++] = PADDING_BYTE;
+            }
         } else {
-            int l = bytes.length - offset;
-            os.write(bytes, offset, l);
-            return l;
+            int b1 = src[soffset + 1] & 0xFF;
+            
+            dest[di++] = alphabets[(b0 & 0x3) << 4 | b1 >>> 4];
+            dest[di++] = alphabets[(b1 & 0xF) << 2];
+            
+            if (padding) {
+                dest[di++] = PADDING_BYTE;
+            }
         }
+        return di;
     }
     
     /**
+     * Read until the buffer is full or end of stream is reached
      * 
-     * @param os output stream
-     * @param bytes data bytes
-     * @param lineBreakCount character before next line break
-     * @param precedingCount preceding characters on the same line before this method call 
-     * @return last line character counts (without line break)
+     * @param is input stream
+     * @param bytes buffer
+     * @return number of bytes read, less than buffer length only when end of stream is reached
      * @throws IOException
      */
-    private static int writeByteWithLineBreak(OutputStream os, byte[] bytes, int lineBreakCount, int precedingCount) 
-            throws IOException {
-        int offset = 0;
-        
-        if (precedingCount > 0) {
-            offset = writeBytes(os, bytes, offset, lineBreakCount - precedingCount);
-        }
-        
-        int l = 0;
-        while (offset < bytes.length) {
-            l = writeBytes(os, bytes, offset, lineBreakCount);
-            offset +=l;
+    private static int readBlock(InputStream is, byte[] bytes) throws IOException {
+        int c = 0;
+        while (c < bytes.length) {
+            int r = is.read(bytes, c, bytes.length - c);
+            if (r == -1) {
+                break;
+            }
+            c += r;
         }
-        
-        return l;
+        return c;
     }
     
     /**
@@ -742,41 +2362,100 @@ public class Base64Convertor {
             chunked = padding = false;
         }
         
-        byte[] bytes = new byte[3072];
+        Base64BufferPool pool = Base64BufferPools.getDefault();
+        byte[] bytes = pool.acquire(ENCODE_BLOCK_SIZE);
+        // Room for the line break between this block and the previous one
+        byte[] output = pool.acquire(encodedLength(bytes.length, chunked, padding) + LINE_BREAK_BYTES.length);
         
-        int iby = is.read();
-        int c = 0, pc = 0;
-        while (iby != -1) {
-            bytes[c++] = (byte)iby;
-            
-            if (c == bytes.length) {
-                if (chunked) {
-                    pc = writeByteWithLineBreak(os, encode(bytes, c, convertor), CHUNK_SIZE, pc);
-                } else {
-                    os.write(encode(bytes, c, convertor));
+        try {
+            boolean first = true;
+            int c;
+            while ((c = readBlock(is, bytes)) > 0) {
+                int di = 0;
+                
+                // Every block except the last one ends on a line boundary
+                if (chunked && !first) {
+                    output[di++] = LINE_BREAK_BYTES[0];
+                    output[di++] = LINE_BREAK_BYTES[1];
+                }
+                
+                di = encodeBytes(bytes, 0, c, output, di, convertor, chunked, padding);
+                os.write(output, 0, di);
+                
+                first = false;
+                
+                if (c < bytes.length) {
+                    break;
                 }
-                c = 0;
             }
-            iby = is.read();
+        } finally {
+            pool.release(bytes);
+            pool.release(output);
         }
         
-        if (c != 0) {
-            if (chunked) {
-                pc = writeByteWithLineBreak(os, encode(bytes, c, convertor), CHUNK_SIZE, pc);
-            } else {
-                os.write(encode(bytes, c, convertor));
-            }
-            if (padding) {
-                int r = c % 3;
-                if (r > 0) {
-                    os.write(PADDING_BYTE);
-                    if (r == 1) {
-                        os.write(PADDING_BYTE);
-                    }
-                }
-            }
+        os.flush();
+        
+        if (closeStream) {
+            is.close();
+            os.close();
+        }
+    }
+    
+    /**
+     * Encode inputted binary stream to Base64 and output the result directly,
+     * pipelined with a worker per available processor
+     * 
+     * @param is input binary data stream
+     * @param os result output stream
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded
+     * @param closeStream close both input & output stream after encoding
+     * @throws IOException
+     * 
+     * @see #encodePipelined(InputStream, OutputStream, Convertor, boolean, boolean, boolean, int)
+     */
+    public static void encodePipelined(
+        InputStream is, OutputStream os, Convertor convertor,
+        boolean chunked, boolean padding, boolean closeStream
+    ) throws IOException {
+        encodePipelined(is, os, convertor, chunked, padding, closeStream, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Encode inputted binary stream to Base64 and output the result directly, pipelined for large streams.<br>
+     * A reader thread fills blocks of PIPELINE_BLOCK_SIZE bytes (whole lines when chunked),
+     * blocks are encoded by the workers & written in order by the calling thread.
+     * Blocks in flight are bounded (2 per worker & 2 more) to cap memory,
+     * output is identical to encode(InputStream, OutputStream, ...).
+     * 
+     * @param is input binary data stream
+     * @param os result output stream
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded
+     * @param closeStream close both input & output stream after encoding
+     * @param workers number of encoding threads, 1 encodes sequentially
+     * @throws IOException
+     */
+    public static void encodePipelined(
+        InputStream is, OutputStream os, Convertor convertor,
+        boolean chunked, boolean padding, boolean closeStream, int workers
+    ) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive!");
+        } else if (workers == 1) {
+            encode(is, os, convertor, chunked, padding, closeStream);
+            return;
         }
         
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        new EncodePipeline(is, os, convertor, chunked, padding, workers).run();
+        
         os.flush();
         
         if (closeStream) {
@@ -797,11 +2476,50 @@ public class Base64Convertor {
      */
     public static void encodeFileToFile(File input, File output, Convertor convertor, boolean chunked, boolean padding) 
             throws IOException {
-        encode(
-            new BufferedInputStream(new FileInputStream(input)),
-            new BufferedOutputStream(new FileOutputStream(output)),
-            convertor, chunked, padding, true
-        );
+        // Simply ignore chunk & padding when URL_SAFE convertor is used
+        if (convertor == Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        try (
+            FileChannel ic = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+            FileChannel oc = FileChannel.open(
+                output.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE
+            )
+        ) {
+            long size = ic.size(), encodedSize = encodedLength(size, chunked, padding);
+            byte[] lineBreakBytes = chunked? LINE_BREAK_BYTES : null;
+            
+            // Encoded between mapped windows directly, incomplete block at the end of a window is mapped again
+            long ip = 0, op = 0, encoded = 0;
+            MappedByteBuffer in = map(ic, FileChannel.MapMode.READ_ONLY, ip, size);
+            MappedByteBuffer out = map(oc, FileChannel.MapMode.READ_WRITE, op, encodedSize);
+            while (true) {
+                boolean endOfInput = ip + in.limit() == size;
+                encoded = Base64Encoder.encodeLines(in, out, convertor, lineBreakBytes, encoded, endOfInput);
+                
+                if (endOfInput && !in.hasRemaining()) {
+                    break;
+                } else if (!endOfInput && in.remaining() < 3) {
+                    ip += in.position();
+                    in = map(ic, FileChannel.MapMode.READ_ONLY, ip, size);
+                } else {
+                    op += out.position();
+                    out = map(oc, FileChannel.MapMode.READ_WRITE, op, encodedSize);
+                }
+            }
+            
+            if (padding && size % 3 > 0) {
+                for (long i = size % 3; i < 3; i++) {
+                    if (!out.hasRemaining()) {
+                        op += out.position();
+                        out = map(oc, FileChannel.MapMode.READ_WRITE, op, encodedSize);
+                    }
+                    out.put(PADDING_BYTE);
+                }
+            }
+        }
     }
     
     /**
@@ -816,10 +2534,336 @@ public class Base64Convertor {
      */
     public static void encodeFileToFile(String input, String output, Convertor convertor, boolean chunked, boolean padding) 
             throws IOException {
-        encode(
-            new BufferedInputStream(new FileInputStream(input)),
-            new BufferedOutputStream(new FileOutputStream(output)),
-            convertor, chunked, padding, true
-        );
+        encodeFileToFile(new File(input), new File(output), convertor, chunked, padding);
+    }
+    
+    /**
+     * Fork join task encoding a slice of the input, slices start on block boundary
+     */
+    private static class EncodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final byte[] src, dest;
+        private final int offset, length, sliceSize;
+        private final Convertor convertor;
+        private final boolean chunked, padding;
+        
+        EncodeTask(
+                byte[] src, int offset, int length, byte[] dest,
+                Convertor convertor, boolean chunked, boolean padding, int sliceSize
+        ) {
+            this.src = src;
+            this.offset = offset;
+            this.length = length;
+            this.dest = dest;
+            this.convertor = convertor;
+            this.chunked = chunked;
+            this.padding = padding;
+            this.sliceSize = sliceSize;
+        }
+        
+        @Override
+        protected void compute() {
+            if (length > sliceSize) {
+                int half = length / 2;
+                half = Math.max(sliceSize, half - half % sliceSize);
+                
+                invokeAll(
+                    new EncodeTask(src, offset, half, dest, convertor, chunked, padding, sliceSize),
+                    new EncodeTask(src, offset + half, length - half, dest, convertor, chunked, padding, sliceSize)
+                );
+            } else if (chunked) {
+                int di = (int)((long)offset / CHUNK_BYTES * (CHUNK_SIZE + LINE_BREAK_BYTES.length));
+                
+                // The line break separating this slice from the previous one
+                if (di > 0) {
+                    dest[di - 2] = LINE_BREAK_BYTES[0];
+                    dest[di - 1] = LINE_BREAK_BYTES[1];
+                }
+                
+                encodeBytes(src, offset, length, dest, di, convertor, true, padding);
+            } else {
+                encodeBytes(src, offset, length, dest, offset / 3 * 4, convertor, false, padding);
+            }
+        }
+    }
+    
+    /**
+     * Pipelined stream encoding: reader thread, encoding workers & ordered writer (the calling thread).<br>
+     * Blocks are recycled through the free queue, which bounds the blocks in flight.
+     */
+    private static final class EncodePipeline {
+        /**
+         * Marker following the last block
+         */
+        private static final Future<Block> END = CompletableFuture.completedFuture(null);
+        
+        private final InputStream is;
+        private final OutputStream os;
+        private final Convertor convertor;
+        private final boolean chunked, padding;
+        private final int capacity;
+        
+        /**
+         * Blocks available for reading
+         */
+        private final BlockingQueue<Block> free;
+        
+        /**
+         * Blocks being encoded or encoded, in input order, followed by a failure (if any) & END
+         */
+        private final BlockingQueue<Future<Block>> ordered;
+        
+        private final ExecutorService workers;
+        
+        /**
+         * Number of blocks created, touched by the reader only
+         */
+        private int created;
+        
+        /**
+         * Flag indicating the writer failed & the reader should stop
+         */
+        private volatile boolean aborted;
+        
+        EncodePipeline(
+                InputStream is, OutputStream os, Convertor convertor, boolean chunked, boolean padding, int workers
+        ) {
+            this.is = is;
+            this.os = os;
+            this.convertor = convertor;
+            this.chunked = chunked;
+            this.padding = padding;
+            
+            // A block for each worker & one queued for each, one being read & one being written
+            this.capacity = workers * 2 + 2;
+            this.free = new ArrayBlockingQueue<>(capacity);
+            // Every block, the failure & END fit without blocking
+            this.ordered = new ArrayBlockingQueue<>(capacity + 2);
+            
+            this.workers = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "base64-pipeline-encoder");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        
+        /**
+         * Run the pipeline, blocks are written on the calling thread
+         * 
+         * @throws IOException failure of reading, encoding or writing
+         */
+        void run() throws IOException {
+            Thread reader = new Thread(this::read, "base64-pipeline-reader");
+            reader.setDaemon(true);
+            reader.start();
+            
+            try {
+                write();
+            } catch (Throwable t) {
+                // Reader may be waiting for a free block which never comes back
+                reader.interrupt();
+                throw t;
+            } finally {
+                aborted = true;
+                workers.shutdown();
+            }
+            
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for reader!");
+            }
+        }
+        
+        /**
+         * Reader stage, read blocks & submit them to the workers in order
+         */
+        private void read() {
+            try {
+                boolean first = true;
+                while (!aborted) {
+                    Block block = free.poll();
+                    if (block == null && created < capacity) {
+                        block = new Block();
+                        created++;
+                    } else if (block == null) {
+                        block = free.take();
+                    }
+                    
+                    int c = readBlock(is, block.input);
+                    if (c == 0) {
+                        break;
+                    }
+                    
+                    block.inputLength = c;
+                    block.first = first;
+                    first = false;
+                    ordered.put(workers.submit(block));
+                    
+                    if (c < block.input.length) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                ordered.offer(CompletableFuture.failedFuture(new InterruptedIOException("Interrupted while reading!")));
+            } catch (Throwable t) {
+                // Any failure (unchecked ones included) is reported to the writer, never taken as end of input
+                ordered.offer(CompletableFuture.failedFuture(t));
+            } finally {
+                ordered.offer(END);
+            }
+        }
+        
+        /**
+         * Writer stage, write encoded blocks in order, everything is drained after a failure
+         * 
+         * @throws IOException the first failure of reading, encoding or writing,
+         *                     unchecked failures are rethrown as they are
+         */
+        private void write() throws IOException {
+            Throwable failure = null;
+            try {
+                Future<Block> future;
+                while ((future = ordered.take()) != END) {
+                    Block block;
+                    try {
+                        block = future.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        aborted = true;
+                        continue;
+                    }
+                    
+                    if (failure == null) {
+                        try {
+                            os.write(block.output, 0, block.outputLength);
+                        } catch (Throwable t) {
+                            failure = t;
+                            aborted = true;
+                        }
+                    }
+                    free.offer(block);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing!");
+            }
+            
+            if (failure instanceof IOException) {
+                throw (IOException)failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException)failure;
+            } else if (failure instanceof Error) {
+                throw (Error)failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        }
+        
+        /**
+         * Block of input & its encoded output, encoded by a worker
+         */
+        private final class Block implements Callable<Block> {
+            private final byte[] input = new byte[PIPELINE_BLOCK_SIZE];
+            // Room for the line break between this block and the previous one
+            private final byte[] output = new byte[
+                encodedLength(PIPELINE_BLOCK_SIZE, chunked, padding) + LINE_BREAK_BYTES.length
+            ];
+            private int inputLength, outputLength;
+            private boolean first;
+            
+            @Override
+            public Block call() {
+                int di = 0;
+                
+                // Every block except the last one ends on a line boundary
+                if (chunked && !first) {
+                    output[di++] = LINE_BREAK_BYTES[0];
+                    output[di++] = LINE_BREAK_BYTES[1];
+                }
+                
+                outputLength = encodeBytes(input, 0, inputLength, output, di, convertor, chunked, padding);
+                return this;
+            }
+        }
+    }
+    
+    /**
+     * Fork join task counting mappable characters of segments
+     */
+    private static class CountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final byte[] src, decodabets;
+        private final int[] bounds, counts;
+        private final int from, to;
+        
+        CountTask(byte[] src, int[] bounds, int[] counts, int from, int to, byte[] decodabets) {
+            this.src = src;
+            this.bounds = bounds;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+            this.decodabets = decodabets;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                
+                invokeAll(
+                    new CountTask(src, bounds, counts, from, mid, decodabets),
+                    new CountTask(src, bounds, counts, mid, to, decodabets)
+                );
+            } else {
+                int c = 0;
+                for (int i = bounds[from], end = bounds[from + 1]; i < end; i++) {
+                    // Sign bit is set for unmappable byte
+                    c += ~decodabets[src[i] & 0xFF] >>> 31;
+                }
+                counts[from] = c;
+            }
+        }
+    }
+    
+    /**
+     * Fork join task decoding segments starting on block boundary into their own output region
+     */
+    private static class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final byte[] src, dest;
+        private final int[] bounds, offsets;
+        private final int from, to;
+        private final Convertor convertor;
+        
+        DecodeTask(byte[] src, int[] bounds, int[] offsets, byte[] dest, int from, int to, Convertor convertor) {
+            this.src = src;
+            this.bounds = bounds;
+            this.offsets = offsets;
+            this.dest = dest;
+            this.from = from;
+            this.to = to;
+            this.convertor = convertor;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                
+                invokeAll(
+                    new DecodeTask(src, bounds, offsets, dest, from, mid, convertor),
+                    new DecodeTask(src, bounds, offsets, dest, mid, to, convertor)
+                );
+            } else {
+                decodeBytes(src, bounds[from], bounds[from + 1] - bounds[from], dest, offsets[from], convertor);
+            }
+        }
     }
 }
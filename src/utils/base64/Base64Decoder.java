@@ -0,0 +1,146 @@
+package utils.base64;
+
+import java.util.Arrays;
+
+/**
+ * Incremental base64 decoder, fed with fragments of any size (even 1 byte) as they arrive.<br><br>
+ * 
+ * The incomplete block (0 ~ 3 characters) is carried between updates,
+ * any unmappable byte (paddings, line breaks, etc) is ignored.
+ * Decoder is reset by finish & can be reused for next data, instances are not thread safe.
+ */
+public class Base64Decoder {
+    /**
+     * Decoding state carried between updates
+     */
+    private final Base64Convertor.StreamDecoder decoder;
+    
+    /**
+     * Construct a Base64Decoder with standard convertor
+     */
+    public Base64Decoder() {
+        this(Base64Convertor.Convertor.STANDARD);
+    }
+    
+    /**
+     * Construct a Base64Decoder
+     * 
+     * @param convertor base64 char to byte convertor
+     */
+    public Base64Decoder(Base64Convertor.Convertor convertor) {
+        this.decoder = new Base64Convertor.StreamDecoder(
+            (convertor != null)? convertor : Base64Convertor.Convertor.STANDARD
+        );
+    }
+    
+    /**
+     * Maximum number of bytes update could produce for the provided number of encoded bytes,
+     * suitable for sizing destination buffer.
+     * 
+     * @param length number of encoded bytes
+     * @return maximum decoded length
+     */
+    public int updateLength(int length) {
+        return (int)((decoder.pending() + (long)length) / 4 * 3);
+    }
+    
+    /**
+     * Decode bytes(Base64), complete blocks are decoded & the incomplete block is carried to the next update
+     * 
+     * @param src source bytes
+     * @return decoded bytes
+     */
+    public byte[] update(byte[] src) {
+        return update(src, 0, src.length);
+    }
+    
+    /**
+     * Decode bytes(Base64), complete blocks are decoded & the incomplete block is carried to the next update
+     * 
+     * @param src source bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to decode
+     * @return decoded bytes
+     */
+    public byte[] update(byte[] src, int srcOff, int srcLen) {
+        byte[] dst = new byte[updateLength(srcLen)];
+        int l = update(src, srcOff, srcLen, dst, 0);
+        
+        // Shorter than estimated only if unmappable bytes are skipped
+        return (l == dst.length)? dst : Arrays.copyOf(dst, l);
+    }
+    
+    /**
+     * Decode bytes(Base64) into the provided destination bytes,
+     * complete blocks are decoded & the incomplete block is carried to the next update
+     * 
+     * @param src source bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to decode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid or destination is too small
+     * 
+     * @see #updateLength(int)
+     */
+    public int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen || dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        } else if (updateLength(srcLen) > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        return decoder.decode(src, srcOff, srcOff + srcLen, dst, dstOff) - dstOff;
+    }
+    
+    /**
+     * Exact number of bytes finish would produce
+     * 
+     * @return decoded length of the incomplete block
+     */
+    public int finishLength() {
+        // A single remaining character is not enough to make up a byte
+        return Math.max(0, decoder.pending() - 1);
+    }
+    
+    /**
+     * Decode the incomplete block & reset the decoder
+     * 
+     * @return decoded bytes
+     */
+    public byte[] finish() {
+        byte[] dst = new byte[finishLength()];
+        finish(dst, 0);
+        return dst;
+    }
+    
+    /**
+     * Decode the incomplete block into the provided destination bytes & reset the decoder
+     * 
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if destination is too small
+     * 
+     * @see #finishLength()
+     */
+    public int finish(byte[] dst, int dstOff) {
+        if (dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        } else if (finishLength() > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        return decoder.finish(dst, dstOff) - dstOff;
+    }
+    
+    /**
+     * Discard the incomplete block, ready for next data
+     */
+    public void reset() {
+        decoder.reset();
+    }
+}
@@ -0,0 +1,64 @@
+package utils.base64;
+
+/**
+ * Reactive processor decoding upstream buffers of base64 encoded data,
+ * any unmappable byte (paddings, line breaks, etc) is ignored.<br><br>
+ * 
+ * Small upstream buffers are re-batched into output buffers of batch size (the last one may be shorter),
+ * backpressure of downstream is respected: upstream is requested only while no complete batch is waiting.
+ * A single subscriber is supported.
+ */
+public class Base64DecodingProcessor extends Base64Processor {
+    /**
+     * Decoding state carried between upstream buffers
+     */
+    private final Base64Decoder decoder;
+    
+    /**
+     * Construct a Base64DecodingProcessor with standard convertor
+     */
+    public Base64DecodingProcessor() {
+        this(Base64Convertor.Convertor.STANDARD);
+    }
+    
+    /**
+     * Construct a Base64DecodingProcessor
+     * 
+     * @param convertor base64 char to byte convertor
+     */
+    public Base64DecodingProcessor(Base64Convertor.Convertor convertor) {
+        this(convertor, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Construct a Base64DecodingProcessor
+     * 
+     * @param convertor base64 char to byte convertor
+     * @param batchSize number of decoded bytes per output buffer
+     */
+    public Base64DecodingProcessor(Base64Convertor.Convertor convertor, int batchSize) {
+        super(batchSize);
+        
+        this.decoder = new Base64Decoder(convertor);
+    }
+    
+    @Override
+    int updateLength(int length) {
+        return decoder.updateLength(length);
+    }
+    
+    @Override
+    int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        return decoder.update(src, srcOff, srcLen, dst, dstOff);
+    }
+    
+    @Override
+    int finishLength() {
+        return decoder.finishLength();
+    }
+    
+    @Override
+    int finish(byte[] dst, int dstOff) {
+        return decoder.finish(dst, dstOff);
+    }
+}
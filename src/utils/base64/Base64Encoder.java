@@ -0,0 +1,329 @@
+package utils.base64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental base64 encoder, fed with fragments of any size (even 1 byte) as they arrive.<br><br>
+ * 
+ * The incomplete block (0 ~ 2 bytes) & the line position are carried between updates,
+ * output of all updates & finish equals Base64OutputStream writing the same bytes.
+ * Encoder is reset by finish & can be reused for next data, instances are not thread safe.
+ */
+public class Base64Encoder {
+    /**
+     * Default line break \r\n
+     */
+    private static final byte[] DEFAULT_LINE_BREAK_BYTES = {'\r', '\n'};
+    
+    /**
+     * Base64 char to byte convertor
+     */
+    private final Base64Convertor.Convertor convertor;
+    
+    /**
+     * Flags indicating data should chunked / padded
+     */
+    private final boolean chunked, padding;
+    
+    /**
+     * Padding byte
+     */
+    private final byte paddingByte;
+    
+    /**
+     * bytes used for line break
+     */
+    private final byte[] lineBreakBytes;
+    
+    /**
+     * Unencoded bytes of the incomplete block
+     */
+    private final byte[] leftoverBytes = new byte[3];
+    
+    /**
+     * Number of bytes in leftoverBytes (0 ~ 2)
+     */
+    private int leftoverLength;
+    
+    /**
+     * Counter recording encoded byte (line breaks excluded), line position is derived from it
+     */
+    private long encodedByteWrote;
+    
+    /**
+     * Construct a Base64Encoder with defaults: Standard convertor, not chunked, with padding
+     */
+    public Base64Encoder() {
+        this(Base64Convertor.Convertor.STANDARD, false, true);
+    }
+    
+    /**
+     * Construct a Base64Encoder
+     * 
+     * @param convertor base64 char to byte convertor
+     * @param chunked flag indicating data should be chunked
+     * @param padding flag indicating data should be padded
+     */
+    public Base64Encoder(Base64Convertor.Convertor convertor, boolean chunked, boolean padding) {
+        this(convertor, chunked, padding, Base64Convertor.PADDING_BYTE, DEFAULT_LINE_BREAK_BYTES);
+    }
+    
+    /**
+     * Construct a Base64Encoder
+     * 
+     * @param convertor base64 char to byte convertor
+     * @param chunked flag indicating data should be chunked
+     * @param padding flag indicating data should be padded
+     * @param paddingByte padding byte
+     * @param lineBreakBytes byte used for line breaks
+     */
+    public Base64Encoder(
+        Base64Convertor.Convertor convertor, boolean chunked, boolean padding, byte paddingByte, byte[] lineBreakBytes
+    ) {
+        this.convertor = (convertor != null)? convertor : Base64Convertor.Convertor.STANDARD;
+        
+        this.chunked = chunked;
+        this.padding = padding;
+        
+        this.paddingByte = paddingByte;
+        
+        this.lineBreakBytes = lineBreakBytes;
+    }
+    
+    /**
+     * Exact number of bytes update would produce for the provided number of bytes
+     * 
+     * @param length number of bytes to be encoded
+     * @return encoded length, line breaks included
+     */
+    public int updateLength(int length) {
+        long chars = (leftoverLength + (long)length) / 3 * 4;
+        return (int)(chars + lineBreaksBefore(chars) * lineBreakBytes.length);
+    }
+    
+    /**
+     * Number of line breaks written before the provided number of following encoded bytes
+     * 
+     * @param chars number of following encoded bytes
+     * @return number of line breaks
+     */
+    private long lineBreaksBefore(long chars) {
+        if (!chunked || chars == 0) {
+            return 0;
+        }
+        
+        // Lines started within the range, except the first line
+        long first = (encodedByteWrote > 0)? (encodedByteWrote - 1) / Base64Convertor.CHUNK_SIZE : 0;
+        return (encodedByteWrote + chars - 1) / Base64Convertor.CHUNK_SIZE - first;
+    }
+    
+    /**
+     * Encode bytes, complete blocks are encoded & the incomplete block is carried to the next update
+     * 
+     * @param src source binary bytes
+     * @return encoded bytes
+     */
+    public byte[] update(byte[] src) {
+        return update(src, 0, src.length);
+    }
+    
+    /**
+     * Encode bytes, complete blocks are encoded & the incomplete block is carried to the next update
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @return encoded bytes
+     */
+    public byte[] update(byte[] src, int srcOff, int srcLen) {
+        byte[] dst = new byte[updateLength(srcLen)];
+        update(src, srcOff, srcLen, dst, 0);
+        return dst;
+    }
+    
+    /**
+     * Encode bytes into the provided destination bytes,
+     * complete blocks are encoded & the incomplete block is carried to the next update
+     * 
+     * @param src source binary bytes
+     * @param srcOff source offset
+     * @param srcLen number of byte to encode
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if source range is invalid or destination is too small
+     * 
+     * @see #updateLength(int)
+     */
+    public int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        if (srcOff < 0 || srcLen < 0 || srcOff > src.length - srcLen || dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        } else if (updateLength(srcLen) > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        int di = dstOff;
+        if (leftoverLength > 0) {
+            // Complete the incomplete block before encoding source directly
+            int l = Math.min(3 - leftoverLength, srcLen);
+            System.arraycopy(src, srcOff, leftoverBytes, leftoverLength, l);
+            leftoverLength += l;
+            srcOff += l;
+            srcLen -= l;
+            
+            if (leftoverLength < 3) {
+                return 0;
+            }
+            
+            di = encodeBlocks(leftoverBytes, 0, 3, dst, di);
+            leftoverLength = 0;
+        }
+        
+        int length = srcLen - srcLen % 3;
+        di = encodeBlocks(src, srcOff, length, dst, di);
+        
+        leftoverLength = srcLen - length;
+        System.arraycopy(src, srcOff + length, leftoverBytes, 0, leftoverLength);
+        
+        return di - dstOff;
+    }
+    
+    /**
+     * Encode bytes with line breaks inline, an incomplete block is encoded without padding
+     * 
+     * @param src source binary bytes
+     * @param offset source offset
+     * @param length number of byte to encode
+     * @param dst destination bytes
+     * @param doffset destination offset
+     * @return next destination offset
+     */
+    private int encodeBlocks(byte[] src, int offset, int length, byte[] dst, int doffset) {
+        ByteBuffer target = ByteBuffer.wrap(dst, doffset, dst.length - doffset);
+        encodedByteWrote = encodeLines(
+            ByteBuffer.wrap(src, offset, length), target, convertor, chunked? lineBreakBytes : null,
+            encodedByteWrote, true
+        );
+        return target.position();
+    }
+    
+    /**
+     * Encode bytes with line breaks inline, as much as the destination holds.
+     * Chunking shared by the encoder, Base64OutputStream & Base64WritableByteChannel:
+     * line break is written before next line, never after the last line, and paddings are never written.
+     * 
+     * @param src source buffer
+     * @param dst destination buffer
+     * @param convertor target convertor
+     * @param lineBreakBytes bytes used for line breaks, null if not chunked
+     * @param encoded number of encoded bytes written before (line breaks excluded), line position is derived from it
+     * @param endOfInput no more input follows the source, the final incomplete block is encoded
+     * @return number of encoded bytes written (line breaks excluded), including those written before
+     */
+    static long encodeLines(
+        ByteBuffer src, ByteBuffer dst, Base64Convertor.Convertor convertor, byte[] lineBreakBytes,
+        long encoded, boolean endOfInput
+    ) {
+        int limit = src.limit();
+        
+        while (src.remaining() >= (endOfInput? 1 : 3)) {
+            int remaining = src.remaining();
+            int preceding = (lineBreakBytes != null)? (int)(encoded % Base64Convertor.CHUNK_SIZE) : 0;
+            int lineBreakLength = (lineBreakBytes != null && preceding == 0 && encoded > 0)? lineBreakBytes.length : 0;
+            int room = dst.remaining() - lineBreakLength;
+            
+            // Bytes filling up current line (a block at least) as much as destination holds, incomplete block at last
+            int l;
+            if (remaining < 3) {
+                l = (room > remaining)? remaining : 0;
+            } else {
+                l = Math.min(remaining / 3, room / 4) * 3;
+                if (lineBreakBytes != null) {
+                    l = Math.min(l, Math.max(3, (Base64Convertor.CHUNK_SIZE - preceding) / 4 * 3));
+                }
+            }
+            
+            if (l <= 0) {
+                break;
+            }
+            
+            if (lineBreakLength > 0) {
+                dst.put(lineBreakBytes);
+            }
+            
+            src.limit(src.position() + l);
+            Base64Convertor.encode(src, dst, convertor, false, true);
+            src.limit(limit);
+            
+            encoded += Base64Convertor.encodedLength(l, convertor, false, false);
+        }
+        return encoded;
+    }
+    
+    /**
+     * Exact number of bytes finish would produce
+     * 
+     * @return encoded length of the incomplete block, line break & paddings included
+     */
+    public int finishLength() {
+        if (leftoverLength == 0) {
+            return 0;
+        }
+        
+        boolean lineBreak = chunked && encodedByteWrote % Base64Convertor.CHUNK_SIZE == 0 && encodedByteWrote > 0;
+        return (lineBreak? lineBreakBytes.length : 0) + (padding? 4 : leftoverLength + 1);
+    }
+    
+    /**
+     * Encode the incomplete block with paddings & reset the encoder
+     * 
+     * @return encoded bytes
+     */
+    public byte[] finish() {
+        byte[] dst = new byte[finishLength()];
+        finish(dst, 0);
+        return dst;
+    }
+    
+    /**
+     * Encode the incomplete block with paddings into the provided destination bytes & reset the encoder
+     * 
+     * @param dst destination bytes
+     * @param dstOff destination offset
+     * @return number of bytes written to destination
+     * 
+     * @throws IndexOutOfBoundsException if destination is too small
+     * 
+     * @see #finishLength()
+     */
+    public int finish(byte[] dst, int dstOff) {
+        if (dstOff < 0 || dstOff > dst.length) {
+            throw new IndexOutOfBoundsException();
+        } else if (finishLength() > dst.length - dstOff) {
+            throw new IndexOutOfBoundsException("Destination too small!");
+        }
+        
+        int di = dstOff;
+        if (leftoverLength > 0) {
+            di = encodeBlocks(leftoverBytes, 0, leftoverLength, dst, di);
+            
+            if (padding) {
+                for (int i = leftoverLength; i < 3; i++) {
+                    dst[di++] = paddingByte;
+                }
+            }
+        }
+        
+        reset();
+        return di - dstOff;
+    }
+    
+    /**
+     * Discard the incomplete block & line position, ready for next data
+     */
+    public void reset() {
+        leftoverLength = 0;
+        encodedByteWrote = 0;
+    }
+}
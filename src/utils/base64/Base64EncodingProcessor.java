@@ -0,0 +1,68 @@
+package utils.base64;
+
+/**
+ * Reactive processor encoding upstream buffers, output equals Base64OutputStream writing the same bytes.<br><br>
+ * 
+ * Small upstream buffers are re-batched into output buffers of batch size (the last one may be shorter),
+ * backpressure of downstream is respected: upstream is requested only while no complete batch is waiting.
+ * A single subscriber is supported.
+ */
+public class Base64EncodingProcessor extends Base64Processor {
+    /**
+     * Encoding state carried between upstream buffers
+     */
+    private final Base64Encoder encoder;
+    
+    /**
+     * Construct a Base64EncodingProcessor with defaults: Standard convertor, not chunked, with padding
+     */
+    public Base64EncodingProcessor() {
+        this(Base64Convertor.Convertor.STANDARD, false, true);
+    }
+    
+    /**
+     * Construct a Base64EncodingProcessor
+     * 
+     * @param convertor base64 char to byte convertor
+     * @param chunked flag indicating data should be chunked
+     * @param padding flag indicating data should be padded
+     */
+    public Base64EncodingProcessor(Base64Convertor.Convertor convertor, boolean chunked, boolean padding) {
+        this(new Base64Encoder(convertor, chunked, padding), DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Construct a Base64EncodingProcessor
+     * 
+     * @param encoder encoder with the desired settings, used by this processor exclusively
+     * @param batchSize number of encoded bytes per output buffer
+     */
+    public Base64EncodingProcessor(Base64Encoder encoder, int batchSize) {
+        super(batchSize);
+        if (encoder == null) {
+            throw new IllegalArgumentException("Encoder must not be null!");
+        }
+        
+        this.encoder = encoder;
+    }
+    
+    @Override
+    int updateLength(int length) {
+        return encoder.updateLength(length);
+    }
+    
+    @Override
+    int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        return encoder.update(src, srcOff, srcLen, dst, dstOff);
+    }
+    
+    @Override
+    int finishLength() {
+        return encoder.finishLength();
+    }
+    
+    @Override
+    int finish(byte[] dst, int dstOff) {
+        return encoder.finish(dst, dstOff);
+    }
+}
@@ -0,0 +1,33 @@
+package utils.base64;
+
+/**
+ * Thrown by strict decoding when encoded data is malformed
+ */
+public class Base64FormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Offset of the first invalid character
+     */
+    private final int offset;
+    
+    /**
+     * Construct a Base64FormatException
+     * 
+     * @param message detail message
+     * @param offset offset of the first invalid character, end offset if encoded data ends early
+     */
+    public Base64FormatException(String message, int offset) {
+        super(message);
+        this.offset = offset;
+    }
+    
+    /**
+     * Retrieve the offset of the first invalid character
+     * 
+     * @return offset of the first invalid character, end offset if encoded data ends early
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
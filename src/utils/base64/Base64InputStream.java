@@ -6,7 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Filtered input stream for reading base64 encoded data in decoded form. 
+ * Filtered input stream for reading base64 encoded data in decoded form.
  *
  */
 public class Base64InputStream extends FilterInputStream {
@@ -20,25 +20,61 @@ public class Base64InputStream extends FilterInputStream {
      */
     private Base64Convertor.Convertor convertor;
     
+    /**
+     * Decoding state carried between read ahead blocks
+     */
+    private Base64Convertor.StreamDecoder decoder;
+    
     /**
      * Next byte position in decodedBytes
      */
     private int nextPosition;
     
     /**
-     * Decoded bytes for read
+     * Encoded bytes read ahead, reused for every block
+     */
+    private byte[] encodedBytes;
+    
+    /**
+     * Decoded bytes for read, reused for every block
      */
     private byte[] decodedBytes;
     
+    /**
+     * Number of decoded bytes in decodedBytes
+     */
+    private int decodedLength;
+    
     /**
      * Flag indicating end of stream
      */
     private boolean endReached;
     
+    /**
+     * Flag indicating encoded data is laid out as encode does (no other character than line breaks & paddings),
+     * skip is then done on encoded bytes directly
+     */
+    private boolean regular;
+    
+    /**
+     * Flag indicating regular encoded data is chunked
+     */
+    private boolean chunked;
+    
+    /**
+     * Number of encoded bytes consumed from underlying input stream
+     */
+    private long encodedPosition;
+    
+    /**
+     * Pool from which encodedBytes & decodedBytes are borrowed
+     */
+    private Base64BufferPool bufferPool;
+    
     /**
      * Construct a Base64InputStream with standard convertor
      * 
-     * @param in Source inuput stream containing base64 encoded data 
+     * @param in Source inuput stream containing base64 encoded data
      * @throws IOException
      */
     public Base64InputStream(InputStream in) throws IOException {
@@ -53,16 +89,134 @@ public class Base64InputStream extends FilterInputStream {
      * @throws IOException
      */
     public Base64InputStream(InputStream in, Base64Convertor.Convertor convertor) throws IOException {
-        super(new BufferedInputStream(in));
+        this(in, convertor, DEFAULT_READ_COUNT);
+    }
+    
+    /**
+     * Construct a Base64InputStream with provided convertor & read ahead buffer size
+     * 
+     * @param in Source input stream containing base64 encoded data
+     * @param convertor target convertor
+     * @param bufferSize number of encoded bytes read ahead at a time
+     * @throws IOException
+     */
+    public Base64InputStream(InputStream in, Base64Convertor.Convertor convertor, int bufferSize) throws IOException {
+        this(in, convertor, bufferSize, false, false, true, Base64BufferPools.getDefault());
+    }
+    
+    private Base64InputStream(
+            InputStream in, Base64Convertor.Convertor convertor, int bufferSize, boolean regular, boolean chunked,
+            boolean buffered, Base64BufferPool bufferPool
+    ) throws IOException {
+        super(buffered? new BufferedInputStream(in) : in);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive!");
+        }
+        
         if (convertor != null) {
             this.convertor = convertor;
         } else {
             this.convertor = Base64Convertor.Convertor.STANDARD;
         }
         
+        this.decoder = new Base64Convertor.StreamDecoder(this.convertor);
+        this.bufferPool = (bufferPool != null)? bufferPool : Base64BufferPools.getDefault();
+        this.encodedBytes = this.bufferPool.acquire(bufferSize);
+        // Values carried over from previous block may complete one more block
+        this.decodedBytes = this.bufferPool.acquire(Base64Convertor.maxDecodedLength(bufferSize) + 3);
+        this.regular = regular;
+        this.chunked = chunked;
+        
         buildValues();
     }
     
+    /**
+     * Create a builder of Base64InputStream, for settings not covered by constructors
+     * 
+     * @param in Source input stream containing base64 encoded data
+     * @return builder with default settings: Standard convertor, default buffer size, buffered, unknown layout
+     */
+    public static Builder builder(InputStream in) {
+        return new Builder(in);
+    }
+    
+    /**
+     * Builder of Base64InputStream
+     */
+    public static class Builder {
+        private InputStream in;
+        private Base64Convertor.Convertor convertor = Base64Convertor.Convertor.STANDARD;
+        private int bufferSize = DEFAULT_READ_COUNT;
+        private boolean regular, chunked;
+        private boolean buffered = true;
+        private Base64BufferPool bufferPool;
+        
+        private Builder(InputStream in) {
+            this.in = in;
+        }
+        
+        /**
+         * @param convertor target convertor
+         * @return this builder
+         */
+        public Builder convertor(Base64Convertor.Convertor convertor) {
+            this.convertor = convertor;
+            return this;
+        }
+        
+        /**
+         * @param bufferSize number of encoded bytes read ahead at a time
+         * @return this builder
+         */
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * Declare encoded data is laid out as Base64Convertor.encode does
+         * (nothing but line breaks between chunked lines & trailing paddings),
+         * skip is then done by skipping encoded bytes without decoding them.
+         * Unchunked data is declared with chunked false, leave this unset if the layout is unknown.
+         * 
+         * @param chunked encoded data is chunked (CHUNK_SIZE characters per line, separated by \r\n)
+         * @return this builder
+         */
+        public Builder layout(boolean chunked) {
+            this.regular = true;
+            this.chunked = chunked;
+            return this;
+        }
+        
+        /**
+         * @param buffered wrap source input stream with a BufferedInputStream,
+         *                 unnecessary for buffered streams since encoded bytes are read in blocks already
+         * @return this builder
+         */
+        public Builder buffered(boolean buffered) {
+            this.buffered = buffered;
+            return this;
+        }
+        
+        /**
+         * @param bufferPool pool from which buffers are borrowed until the stream is closed,
+         *                   default pool of Base64BufferPools is used if not set
+         * @return this builder
+         */
+        public Builder bufferPool(Base64BufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+        
+        /**
+         * @return Base64InputStream with settings of this builder
+         * @throws IOException
+         */
+        public Base64InputStream build() throws IOException {
+            return new Base64InputStream(in, convertor, bufferSize, regular, chunked, buffered, bufferPool);
+        }
+    }
+    
     /**
      * Build default values
      * 
@@ -70,6 +224,7 @@ public class Base64InputStream extends FilterInputStream {
      */
     private void buildValues() throws IOException {
         this.nextPosition = 0;
+        this.decodedLength = 0;
         this.endReached = false;
         
         try {
@@ -80,57 +235,112 @@ public class Base64InputStream extends FilterInputStream {
     }
     
     /**
-     * Decode ahead for next read
+     * Decode ahead for next read, a block of encoded bytes is read in bulk
      * 
      * @throws IOException
      */
     private void decodeNextBytes() throws IOException {
+        decodeNextBytes(encodedBytes.length);
+    }
+    
+    /**
+     * Decode ahead for next read, up to the number of encoded bytes
+     * 
+     * @param length maximum number of encoded bytes to read, not greater than encodedBytes.length
+     * @throws IOException
+     */
+    private void decodeNextBytes(int length) throws IOException {
+        this.decodedLength = decodeNextBytes(decodedBytes, 0, length);
+        this.nextPosition = 0;
+    }
+    
+    /**
+     * Read a block of encoded bytes in bulk & decode it to the destination
+     * 
+     * @param dest destination bytes, must have room for decodedBytes.length bytes
+     * @param doffset destination offset
+     * @param length maximum number of encoded bytes to read, not greater than encodedBytes.length
+     * @return number of decoded bytes
+     * @throws IOException
+     */
+    private int decodeNextBytes(byte[] dest, int doffset, int length) throws IOException {
         if (endReached) {
-            return;
+            return 0;
         }
         
-        byte[] bytes = new byte[DEFAULT_READ_COUNT];
-        
-        int iby = in.read();
-        int c = 0;
-        while (iby != -1) {
-            byte byt = convertor.decode(iby);
-            if (byt >= 0) {
-                bytes[c++] = byt;
-                
-                if (c == bytes.length) {
-                    this.decodedBytes = Base64Convertor.shiftDecode(bytes, c);
-                    return;
-                }
+        int r = in.read(encodedBytes, 0, length);
+        if (r == -1) {
+            endReached = true;
+            
+            return decoder.finish(dest, doffset) - doffset;
+        } else {
+            encodedPosition += r;
+            
+            return decoder.decode(encodedBytes, 0, r, dest, doffset) - doffset;
+        }
+    }
+    
+    /**
+     * Decode ahead until decoded bytes are available for read,
+     * a block may decode to nothing (line breaks only)
+     * 
+     * @return false if end of stream reached & all decoded bytes are read
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        while (nextPosition == decodedLength) {
+            if (endReached) {
+                return false;
             }
-            iby = in.read();
+            decodeNextBytes();
         }
-        
-        this.decodedBytes = Base64Convertor.shiftDecode(bytes, c);
-        
-        endReached = true;
+        return true;
     }
     
     /**
-     * Not implemented, call underlying input stream only.
+     * Estimate decoded bytes available from decoded bytes read ahead & encoded bytes available in underlying input stream,
+     * the last block is left out since paddings may take its place.
+     * Line breaks are assumed unless encoded data is known to be unchunked.
      * 
-     * @return an estimate of the number of bytes that can be read (or skipped over) 
+     * @return an estimate of the number of bytes that can be read (or skipped over)
      *         from this input stream without blocking.
      */
     @Override
     public int available() throws IOException {
-        return getIn().available();
+        long encoded = getIn().available();
+        long chars;
+        if (regular) {
+            chars = Base64Convertor.charsBefore(encodedPosition + encoded, chunked)
+                    - Base64Convertor.charsBefore(encodedPosition, chunked);
+        } else {
+            chars = Base64Convertor.charsBefore(encoded, true);
+        }
+        
+        long blocks = (decoder.pending() + chars) / 4;
+        long estimate = (decodedLength - nextPosition) + Math.max(0, blocks - 1) * 3;
+        
+        return (int)Math.min(estimate, Integer.MAX_VALUE);
     }
     
     /**
-     * Close the underlying input stream.
+     * Close the underlying input stream, buffers are returned to the buffer pool.
      */
     @Override
     public void close() throws IOException {
-        if (in != null) {
-            in.close();
+        try {
+            if (in != null) {
+                in.close();
+            }
+        } finally {
+            in = null;
+            
+            if (encodedBytes != null) {
+                bufferPool.release(encodedBytes);
+                bufferPool.release(decodedBytes);
+                encodedBytes = decodedBytes = null;
+                nextPosition = decodedLength = 0;
+            }
         }
-        in = null;
     }
     
     /**
@@ -149,15 +359,8 @@ public class Base64InputStream extends FilterInputStream {
      */
     @Override
     public int read() throws IOException {
-        if (nextPosition == decodedBytes.length) {
-            if (endReached) {
-                return -1;
-            } else {
-                nextPosition = 0;
-                decodeNextBytes();
-            }
-        }
-        if (nextPosition < decodedBytes.length) {
+        ensureOpen();
+        if (fill()) {
             return decodedBytes[nextPosition++] & 0xFF;
         } else {
             return -1;
@@ -168,7 +371,7 @@ public class Base64InputStream extends FilterInputStream {
      * Read bytes that fill up the input buffer
      * 
      * @param bytes buffer for which data is read
-     * @return length of data read, -1 is returned when end of stream reached 
+     * @return length of data read, -1 is returned when end of stream reached
      */
     @Override
     public int read(byte[] bytes) throws IOException {
@@ -186,51 +389,34 @@ public class Base64InputStream extends FilterInputStream {
      */
     @Override
     public int read(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
         if (offset < 0 || length < 0 || offset > bytes.length || offset + length > bytes.length) {
             throw new IndexOutOfBoundsException();
         } else if (length == 0) {
             return 0;
         } else {
-            if (endReached && nextPosition >= decodedBytes.length) {
-                return -1;
-            } else {
-                if (length <= decodedBytes.length - nextPosition) {
-                    System.arraycopy(decodedBytes, nextPosition, bytes, offset, length);
-                    nextPosition += length;
+            /*
+             * Blocks are decoded directly to the buffer while a whole block fits,
+             * only the remaining tail is decoded ahead & copied
+             */
+            int l = 0;
+            while (l < length) {
+                if (nextPosition < decodedLength) {
+                    int c = Math.min(length - l, decodedLength - nextPosition);
                     
-                    if (nextPosition == decodedBytes.length && !endReached) {
-                        decodeNextBytes();
-                        nextPosition = 0;
-                    }
-                    
-                    return length;
+                    System.arraycopy(decodedBytes, nextPosition, bytes, offset + l, c);
+                    nextPosition += c;
+                    l += c;
+                } else if (endReached) {
+                    break;
+                } else if (length - l >= decodedBytes.length) {
+                    l += decodeNextBytes(bytes, offset + l, encodedBytes.length);
                 } else {
-                    if (endReached) {
-                        int l = decodedBytes.length - nextPosition;
-                        
-                        System.arraycopy(decodedBytes, nextPosition, bytes, offset, l);
-                        
-                        nextPosition = decodedBytes.length;
-                        
-                        return l;
-                    } else {
-                        int l = decodedBytes.length - nextPosition;
-                        
-                        System.arraycopy(decodedBytes, nextPosition, bytes, offset, l);
-                        
-                        decodeNextBytes();
-                        nextPosition = 0;
-                        
-                        int r = read(bytes, offset + l, length - l);
-                        
-                        if (r == -1) {
-                            return l;
-                        } else {
-                            return l + r;
-                        }
-                    }
+                    decodeNextBytes();
                 }
             }
+            
+            return (l > 0)? l : -1;
         }
     }
     
@@ -247,6 +433,15 @@ public class Base64InputStream extends FilterInputStream {
         }
     }
     
+    /**
+     * Check the stream is not closed, buffers are returned to the buffer pool once closed
+     * 
+     * @throws IOException if the stream is closed
+     */
+    private void ensureOpen() throws IOException {
+        getIn();
+    }
+    
     /**
      * Not implemented
      */
@@ -256,40 +451,78 @@ public class Base64InputStream extends FilterInputStream {
     }
     
     /**
-     * Skip bytes without reading
-     * Actually bytes are still reading in and decoded but offsetted making them unreadable
+     * Skip bytes without reading<br><br>
+     * 
+     * For encoded data laid out as Base64Convertor.encode does, whole blocks are skipped on the underlying input stream
+     * & only the block at boundary is decoded, otherwise bytes are still read in & decoded but made unreadable.
      * 
      * @param n number of byte to be skipped
      */
     @Override
     public long skip(long n) throws IOException {
-        if (endReached) {
-            int l = decodedBytes.length - nextPosition;
-            
-            if (n <= l) {
-                nextPosition += n;
-                return n;
-            } else {
-                nextPosition = decodedBytes.length;
-                return l;
-            }
-        } else if (nextPosition + n < decodedBytes.length) {
-            nextPosition += n;
-            
-            return n;
-        } else {
-            int skipped = 0;
-            while (nextPosition + n >= decodedBytes.length) {
-                skipped += decodedBytes.length - nextPosition;
+        ensureOpen();
+        long remaining = n;
+        while (remaining > 0) {
+            if (nextPosition < decodedLength) {
+                int l = (int)Math.min(remaining, decodedLength - nextPosition);
                 
+                nextPosition += l;
+                remaining -= l;
+            } else if (endReached) {
+                break;
+            } else if (regular && remaining >= 3) {
+                remaining -= skipBlocks(remaining / 3);
+            } else {
                 decodeNextBytes();
-                nextPosition = 0;
-                n -= decodedBytes.length;
+            }
+        }
+        return n - remaining;
+    }
+    
+    /**
+     * Skip whole blocks of regular encoded data on the underlying input stream,
+     * decoded bytes read ahead must be consumed.
+     * The last block & bytes not available without blocking are never skipped,
+     * they are decoded ahead instead (as well as the carried over incomplete block).
+     * 
+     * @param blocks maximum number of blocks to skip
+     * @return number of decoded bytes skipped
+     * @throws IOException
+     */
+    private long skipBlocks(long blocks) throws IOException {
+        long chars = Base64Convertor.charsBefore(encodedPosition, chunked);
+        
+        if (decoder.pending() > 0) {
+            // Complete the carried over block, decoding up to next block boundary only
+            long next = Base64Convertor.positionOf(chars + 4 - decoder.pending(), chunked);
+            decodeNextBytes((int)Math.min(next - encodedPosition, encodedBytes.length));
+            return 0;
+        }
+        
+        // Available bytes exist, stop before the last 4 of them so that the last block (may be padded) is decoded
+        long limit = Base64Convertor.charsBefore(encodedPosition + Math.max(0, in.available() - 4), chunked);
+        long target = chars + Math.min(blocks, (limit - chars) / 4) * 4;
+        
+        if (target <= chars) {
+            decodeNextBytes();
+            return 0;
+        }
+        
+        long length = Base64Convertor.positionOf(target, chunked) - encodedPosition;
+        while (length > 0) {
+            long s = in.skip(length);
+            if (s <= 0) {
+                // Skip not supported by underlying input stream, read bytes to skip instead
+                s = in.read(encodedBytes, 0, (int)Math.min(length, encodedBytes.length));
+                if (s == -1) {
+                    throw new IOException("Unexpected end of stream!");
+                }
             }
             
-            skipped += n;
-            
-            return skipped;
+            encodedPosition += s;
+            length -= s;
         }
+        
+        return (target - chars) / 4 * 3;
     }
 }
@@ -4,6 +4,7 @@ import java.io.BufferedOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Filtered output stream for writing data in encoded form
@@ -15,6 +16,11 @@ public class Base64OutputStream extends FilterOutputStream {
      */
     private static final int DEFAULT_UNENCODED_BYTE_COUNT = 3072;
     
+    /**
+     * Default line break \r\n
+     */
+    private static final byte[] DEFAULT_LINE_BREAK_BYTES = {'\r', '\n'};
+    
     /**
      * Base64 char to byte convertor
      */
@@ -37,20 +43,30 @@ public class Base64OutputStream extends FilterOutputStream {
      */
     private byte[] unencodedBytes;
     
+    /**
+     * Buffer for encoded data (line breaks included), reused for every write to the underlying output stream
+     */
+    private byte[] encodedBytes;
+    
     /**
      * Next position of input byte (unencoded)
      */
     private int nextPosition = 0;
     
     /**
-     * Counters recording wrote byte & encoded byte
+     * Counters recording wrote byte & encoded byte (line breaks excluded)
      */
-    private int byteWrote = 0, encodedByteWrote = 0;
+    private long byteWrote = 0, encodedByteWrote = 0;
+    
+    /**
+     * Pool from which unencodedBytes & encodedBytes are borrowed
+     */
+    private Base64BufferPool bufferPool;
     
     /**
      * bytes used for line break
      */
-    private byte[] lineBreakBytes = {'\r', '\n'};
+    private byte[] lineBreakBytes;
     
     /**
      * Construct a Base64OutputStream with default settings: No line break & paddings, Standard convertor
@@ -81,16 +97,7 @@ public class Base64OutputStream extends FilterOutputStream {
      * @param padding flag indication data should be padded
      */
     public Base64OutputStream(OutputStream os, Base64Convertor.Convertor convertor, boolean chunked, boolean padding) {
-        super(new BufferedOutputStream(os));
-        
-        this.convertor = convertor;
-        
-        this.chunked = chunked;
-        this.padding = padding;
-        
-        this.paddingByte = Base64Convertor.PADDING_BYTE;
-        
-        buildValues();
+        this(os, convertor, chunked, padding, Base64Convertor.PADDING_BYTE, DEFAULT_LINE_BREAK_BYTES);
     }
     
     /**
@@ -124,7 +131,20 @@ public class Base64OutputStream extends FilterOutputStream {
         OutputStream os, Base64Convertor.Convertor convertor, boolean chunked, boolean padding,
         byte paddingByte, byte[] lineBreakBytes
     ) {
-        super(new BufferedOutputStream(os));
+        this(
+            os, convertor, chunked, padding, paddingByte, lineBreakBytes, DEFAULT_UNENCODED_BYTE_COUNT, true,
+            Base64BufferPools.getDefault()
+        );
+    }
+    
+    private Base64OutputStream(
+        OutputStream os, Base64Convertor.Convertor convertor, boolean chunked, boolean padding,
+        byte paddingByte, byte[] lineBreakBytes, int bufferSize, boolean buffered, Base64BufferPool bufferPool
+    ) {
+        super(buffered? new BufferedOutputStream(os) : os);
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive!");
+        }
         
         this.convertor = convertor;
         
@@ -135,35 +155,169 @@ public class Base64OutputStream extends FilterOutputStream {
         
         this.lineBreakBytes = lineBreakBytes;
         
-        buildValues();
+        this.bufferPool = (bufferPool != null)? bufferPool : Base64BufferPools.getDefault();
+        
+        buildValues(bufferSize);
+    }
+    
+    /**
+     * Create a builder of Base64OutputStream, for settings not covered by constructors
+     * 
+     * @param os underlying output stream
+     * @return builder with default settings: No line break & paddings, Standard convertor, default buffer size, buffered
+     */
+    public static Builder builder(OutputStream os) {
+        return new Builder(os);
+    }
+    
+    /**
+     * Builder of Base64OutputStream
+     */
+    public static class Builder {
+        private OutputStream os;
+        private Base64Convertor.Convertor convertor = Base64Convertor.Convertor.STANDARD;
+        private boolean chunked, padding;
+        private byte paddingByte = Base64Convertor.PADDING_BYTE;
+        private byte[] lineBreakBytes = DEFAULT_LINE_BREAK_BYTES;
+        private int bufferSize = DEFAULT_UNENCODED_BYTE_COUNT;
+        private boolean buffered = true;
+        private Base64BufferPool bufferPool;
+        
+        private Builder(OutputStream os) {
+            this.os = os;
+        }
+        
+        /**
+         * @param convertor base64 char to byte convertor
+         * @return this builder
+         */
+        public Builder convertor(Base64Convertor.Convertor convertor) {
+            this.convertor = convertor;
+            return this;
+        }
+        
+        /**
+         * @param chunked flag indicating data should be chunked
+         * @return this builder
+         */
+        public Builder chunked(boolean chunked) {
+            this.chunked = chunked;
+            return this;
+        }
+        
+        /**
+         * @param padding flag indicating data should be padded
+         * @return this builder
+         */
+        public Builder padding(boolean padding) {
+            this.padding = padding;
+            return this;
+        }
+        
+        /**
+         * @param paddingByte padding byte
+         * @return this builder
+         */
+        public Builder paddingByte(byte paddingByte) {
+            this.paddingByte = paddingByte;
+            return this;
+        }
+        
+        /**
+         * @param lineBreakBytes byte used for line breaks
+         * @return this builder
+         */
+        public Builder lineBreakBytes(byte[] lineBreakBytes) {
+            this.lineBreakBytes = lineBreakBytes;
+            return this;
+        }
+        
+        /**
+         * @param bufferSize number of unencoded bytes buffered, rounded down to blocks of 3 (a block at least)
+         * @return this builder
+         */
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * @param buffered wrap underlying output stream with a BufferedOutputStream,
+         *                 unnecessary for buffered streams since encoded bytes are written in blocks already
+         * @return this builder
+         */
+        public Builder buffered(boolean buffered) {
+            this.buffered = buffered;
+            return this;
+        }
+        
+        /**
+         * @param bufferPool pool from which buffers are borrowed until the stream is closed,
+         *                   default pool of Base64BufferPools is used if not set
+         * @return this builder
+         */
+        public Builder bufferPool(Base64BufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
+        
+        /**
+         * @return Base64OutputStream with settings of this builder
+         */
+        public Base64OutputStream build() {
+            return new Base64OutputStream(
+                os, convertor, chunked, padding, paddingByte, lineBreakBytes, bufferSize, buffered, bufferPool
+            );
+        }
     }
     
     /**
      * build default values
+     * 
+     * @param bufferSize number of unencoded bytes buffered
      */
-    private void buildValues() {
-        unencodedBytes = new byte[DEFAULT_UNENCODED_BYTE_COUNT];
+    private void buildValues(int bufferSize) {
+        if (convertor == null) {
+            convertor = Base64Convertor.Convertor.STANDARD;
+        }
+        
+        // Whole blocks only, a full buffer is encoded without padding in the middle of data
+        unencodedBytes = bufferPool.acquire(Math.max(3, bufferSize / 3 * 3));
+        
+        // Line break before the first line, after every complete line & the final incomplete block
+        int chars = Base64Convertor.encodedLength(unencodedBytes.length, convertor, false, false);
+        encodedBytes = bufferPool.acquire(chars + (chars / Base64Convertor.CHUNK_SIZE + 1) * lineBreakBytes.length + 4);
         
         nextPosition = 0;
     }
     
     /**
-     * Close the underlying output stream.
+     * Close the underlying output stream, buffers are returned to the buffer pool.
      * Padding bytes is written during this process.
      */
     @Override
     public void close() throws IOException {
-        flushAll();
-        if (padding) {
-            int r = byteWrote % 3;
-            if (r > 0) {
-                out.write(paddingByte);
-                if (r == 1) {
-                    out.write(paddingByte);
+        if (unencodedBytes == null) {
+            // Closed already
+            return;
+        }
+        
+        try {
+            flushAll();
+            if (padding) {
+                int r = (int)(byteWrote % 3);
+                if (r > 0) {
+                    // Written at once, the underlying output stream may not be buffered
+                    encodedBytes[0] = encodedBytes[1] = paddingByte;
+                    out.write(encodedBytes, 0, 3 - r);
                 }
             }
+            out.close();
+        } finally {
+            bufferPool.release(unencodedBytes);
+            bufferPool.release(encodedBytes);
+            unencodedBytes = encodedBytes = null;
         }
-        out.close();
     }
     
     /**
@@ -172,6 +326,7 @@ public class Base64OutputStream extends FilterOutputStream {
      */
     @Override
     public void flush() throws IOException {
+        ensureOpen();
         writeUnencoded(true);
         out.flush();
     }
@@ -182,10 +337,22 @@ public class Base64OutputStream extends FilterOutputStream {
      * @throws IOException
      */
     public void flushAll() throws IOException {
+        ensureOpen();
         writeUnencoded(false);
         out.flush();
     }
     
+    /**
+     * Check the stream is not closed, buffers are returned to the buffer pool once closed
+     * 
+     * @throws IOException if the stream is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (unencodedBytes == null) {
+            throw new IOException("OutputStream closed!");
+        }
+    }
+    
     /**
      * Encode the unencoded data and write it to the underlying output stream.
      * 
@@ -204,56 +371,42 @@ public class Base64OutputStream extends FilterOutputStream {
             length = nextPosition - (nextPosition % 3);
         }
         
-        byte[] encodedBytes = null;
-        if (nextPosition == unencodedBytes.length) {
-            encodedBytes = Base64Convertor.encode(unencodedBytes, convertor, false, false);
-        } else {
-            encodedBytes = Base64Convertor.encode(unencodedBytes, convertor, 0, length, false, false);
-        }
+        writeEncoded(unencodedBytes, 0, length);
         
         if (length != nextPosition) {
             System.arraycopy(unencodedBytes, length, unencodedBytes, 0, nextPosition-length);
         }
         
-        if (chunked) {
-            int l = encodedBytes.length, offset = 0;
-            int preceeding = encodedByteWrote % Base64Convertor.CHUNK_SIZE;
-            
-            if (preceeding == 0 && encodedByteWrote > 0) {
-                out.write(lineBreakBytes);
-            }
-            
-            while (l > 0 && preceeding + l >= Base64Convertor.CHUNK_SIZE) {
-                int bl = Base64Convertor.CHUNK_SIZE - preceeding;
-                
-                if (bl > 0) {
-                    out.write(encodedBytes, offset, bl);
-                    
-                    if (l > bl) {
-                        out.write(lineBreakBytes);
-                    }
-                }
-                
-                preceeding = 0;
-                l -= bl;
-                offset += bl;
-            }
-            
-            out.write(encodedBytes, offset, l);
-        } else {
-            out.write(encodedBytes);
-        }
-        
-        encodedByteWrote += encodedBytes.length;
-        byteWrote += length;
         nextPosition = nextPosition - length;
     }
     
+    /**
+     * Encode bytes into the encoded buffer with line breaks inline & write it to the underlying output stream
+     * 
+     * @param bytes bytes to be encoded
+     * @param offset start offset of bytes
+     * @param length number of bytes to be encoded, not greater than the unencoded buffer size
+     * 
+     * @throws IOException
+     */
+    private void writeEncoded(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer encoded = ByteBuffer.wrap(encodedBytes);
+        encodedByteWrote = Base64Encoder.encodeLines(
+            ByteBuffer.wrap(bytes, offset, length), encoded, convertor, chunked? lineBreakBytes : null,
+            encodedByteWrote, true
+        );
+        byteWrote += length;
+        
+        out.write(encodedBytes, 0, encoded.position());
+    }
+    
     /**
      * Write a byte, it will be stored in the unencoded buffer directly. 
      */
     @Override
     public void write(int b) throws IOException {
+        ensureOpen();
+        
         // if the buffer is full write it to the underlying output stream.
         if (nextPosition == unencodedBytes.length) {
             writeUnencoded(false);
@@ -284,19 +437,30 @@ public class Base64OutputStream extends FilterOutputStream {
      */
     @Override
     public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        
         if (nextPosition == unencodedBytes.length) {
             writeUnencoded(false);
         }
         
-        while (nextPosition + length >= unencodedBytes.length) {
-            int l = unencodedBytes.length - nextPosition;
+        if (nextPosition + length >= unencodedBytes.length) {
+            // Complete the buffered incomplete block, then the buffer is written as whole blocks
+            int l = Math.min(length, (3 - nextPosition % 3) % 3);
             
             System.arraycopy(bytes, offset, unencodedBytes, nextPosition, l);
-            nextPosition = unencodedBytes.length;
-            writeUnencoded(false);
-            
+            nextPosition += l;
             offset += l;
             length -= l;
+            
+            writeUnencoded(true);
+            
+            // Encode directly from the input bytes, as much as the unencoded buffer holds at a time
+            while (nextPosition == 0 && length >= unencodedBytes.length) {
+                writeEncoded(bytes, offset, unencodedBytes.length);
+                
+                offset += unencodedBytes.length;
+                length -= unencodedBytes.length;
+            }
         }
         
         if (length > 0) {
@@ -0,0 +1,323 @@
+package utils.base64;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base of reactive base64 processors, upstream buffers are transformed & re-batched into output buffers of batch size.
+ * <br><br>
+ * 
+ * Downstream receives no more buffers than requested, upstream is requested one buffer at a time
+ * only while no complete batch is waiting for downstream demand.
+ * A single subscriber is supported.
+ */
+abstract class Base64Processor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+    /**
+     * Default output buffer size
+     */
+    static final int DEFAULT_BATCH_SIZE = 8192;
+    
+    /**
+     * Output buffer size
+     */
+    private final int batchSize;
+    
+    /**
+     * Output buffer being filled, touched by upstream signals only
+     */
+    private byte[] batch;
+    
+    /**
+     * Number of bytes in batch
+     */
+    private int batchLength;
+    
+    /**
+     * Transformed bytes of an upstream buffer before being re-batched, reused & grown as needed
+     */
+    private byte[] transformed = new byte[0];
+    
+    /**
+     * Complete batches waiting for downstream demand
+     */
+    private final Queue<ByteBuffer> ready = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Downstream demand not yet fulfilled
+     */
+    private final AtomicLong demand = new AtomicLong();
+    
+    /**
+     * Work in progress counter serializing drain
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+    
+    /**
+     * Flag indicating a buffer has been requested from upstream & not yet received
+     */
+    private final AtomicBoolean upstreamRequested = new AtomicBoolean();
+    
+    private volatile Flow.Subscription upstream;
+    
+    private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+    
+    /**
+     * Flags indicating upstream has terminated (every batch queued) & downstream has been terminated / cancelled
+     */
+    private volatile boolean done, terminated;
+    
+    /**
+     * Error signalled by upstream or caused by transformation
+     */
+    private volatile Throwable error;
+    
+    Base64Processor(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive!");
+        }
+        
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * @param length number of upstream bytes
+     * @return maximum number of bytes update could produce
+     */
+    abstract int updateLength(int length);
+    
+    /**
+     * Transform upstream bytes, the incomplete block is carried to the next update
+     * 
+     * @return number of bytes written to destination
+     */
+    abstract int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+    
+    /**
+     * @return maximum number of bytes finish could produce
+     */
+    abstract int finishLength();
+    
+    /**
+     * Transform the incomplete block at the end of upstream
+     * 
+     * @return number of bytes written to destination
+     */
+    abstract int finish(byte[] dst, int dstOff);
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null!");
+        }
+        
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+                    
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Only a single subscriber is supported!"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancelUpstream();
+                    error = new IllegalArgumentException("Requested number must be positive!");
+                    done = true;
+                    
+                    // Batch being filled would never be delivered
+                    batch = null;
+                    batchLength = 0;
+                } else {
+                    demand.getAndAccumulate(n, (current, added) -> {
+                        long sum = current + added;
+                        return (sum < 0)? Long.MAX_VALUE : sum;
+                    });
+                }
+                drain();
+            }
+            
+            @Override
+            public void cancel() {
+                terminated = true;
+                cancelUpstream();
+                ready.clear();
+                batch = null;
+                batchLength = 0;
+            }
+        });
+        drain();
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        
+        upstream = subscription;
+        drain();
+    }
+    
+    @Override
+    public void onNext(ByteBuffer item) {
+        if (done) {
+            return;
+        }
+        
+        try {
+            int length = item.remaining();
+            byte[] src;
+            int offset;
+            if (item.hasArray()) {
+                src = item.array();
+                offset = item.arrayOffset() + item.position();
+            } else {
+                src = new byte[length];
+                item.duplicate().get(src);
+                offset = 0;
+            }
+            
+            int needed = updateLength(length);
+            if (transformed.length < needed) {
+                transformed = new byte[Math.max(needed, batchSize)];
+            }
+            append(transformed, update(src, offset, length, transformed, 0));
+        } catch (RuntimeException e) {
+            cancelUpstream();
+            error = e;
+            done = true;
+        }
+        
+        // Next buffer is requested once this one is re-batched
+        upstreamRequested.set(false);
+        drain();
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        if (done) {
+            return;
+        }
+        
+        error = throwable;
+        done = true;
+        drain();
+    }
+    
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        
+        try {
+            byte[] tail = new byte[finishLength()];
+            append(tail, finish(tail, 0));
+            if (batchLength > 0) {
+                ready.offer(ByteBuffer.wrap(batch, 0, batchLength));
+                batch = null;
+                batchLength = 0;
+            }
+        } catch (RuntimeException e) {
+            // Upstream has completed already, the failure goes downstream only
+            error = e;
+        }
+        
+        done = true;
+        drain();
+    }
+    
+    /**
+     * Append transformed bytes to the batch, complete batches are queued for downstream
+     * 
+     * @param bytes transformed bytes
+     * @param length number of transformed bytes
+     */
+    private void append(byte[] bytes, int length) {
+        int offset = 0;
+        while (length > 0) {
+            if (batch == null) {
+                batch = new byte[batchSize];
+            }
+            
+            int l = Math.min(length, batchSize - batchLength);
+            System.arraycopy(bytes, offset, batch, batchLength, l);
+            batchLength += l;
+            offset += l;
+            length -= l;
+            
+            if (batchLength == batchSize) {
+                ready.offer(ByteBuffer.wrap(batch));
+                batch = null;
+                batchLength = 0;
+            }
+        }
+    }
+    
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+    
+    /**
+     * Deliver ready batches & terminal signal to downstream as demanded, request upstream when nothing is ready
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super ByteBuffer> subscriber = downstream;
+            if (subscriber != null && !terminated) {
+                while (demand.get() > 0 && error == null) {
+                    ByteBuffer buffer = ready.poll();
+                    if (buffer == null) {
+                        break;
+                    }
+                    
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(buffer);
+                }
+                
+                // Terminal signal after every ready batch, an error is signalled without delay
+                boolean d = done;
+                Throwable e = error;
+                if (e != null) {
+                    terminated = true;
+                    ready.clear();
+                    subscriber.onError(e);
+                } else if (d && ready.isEmpty()) {
+                    terminated = true;
+                    subscriber.onComplete();
+                } else if (!d && ready.isEmpty() && upstream != null && upstreamRequested.compareAndSet(false, true)) {
+                    upstream.request(1);
+                }
+            }
+            
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
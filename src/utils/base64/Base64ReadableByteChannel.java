@@ -0,0 +1,185 @@
+package utils.base64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CoderResult;
+
+/**
+ * Readable channel decoding base64 encoded data read from the underlying channel,
+ * the channel counterpart of Base64InputStream.<br><br>
+ * 
+ * Encoded bytes are read into a direct buffer & decoded into the destination buffer directly,
+ * non-blocking channels are supported: 0 is returned when the underlying channel has nothing to read,
+ * the incomplete block read so far is kept for the next read.
+ * Any unmappable byte (paddings, line breaks, etc) is ignored.
+ */
+public class Base64ReadableByteChannel implements ReadableByteChannel {
+    /**
+     * Default read ahead bytes
+     */
+    private static final int DEFAULT_READ_COUNT = 4096;
+    
+    /**
+     * Underlying channel
+     */
+    private ReadableByteChannel channel;
+    
+    /**
+     * Base64 char to byte convertor
+     */
+    private Base64Convertor.Convertor convertor;
+    
+    /**
+     * Encoded bytes read ahead but not decoded yet, always ready for get
+     */
+    private ByteBuffer encodedBuffer;
+    
+    /**
+     * Bytes of a block decoded for a destination too small to hold it, always ready for get
+     */
+    private ByteBuffer decodedBuffer;
+    
+    /**
+     * Flag indicating end of underlying channel
+     */
+    private boolean endReached;
+    
+    /**
+     * Construct a Base64ReadableByteChannel with standard convertor
+     * 
+     * @param channel underlying channel containing base64 encoded data
+     */
+    public Base64ReadableByteChannel(ReadableByteChannel channel) {
+        this(channel, Base64Convertor.Convertor.STANDARD);
+    }
+    
+    /**
+     * Construct a Base64ReadableByteChannel
+     * 
+     * @param channel underlying channel containing base64 encoded data
+     * @param convertor base64 char to byte convertor
+     */
+    public Base64ReadableByteChannel(ReadableByteChannel channel, Base64Convertor.Convertor convertor) {
+        this(channel, convertor, DEFAULT_READ_COUNT);
+    }
+    
+    /**
+     * Construct a Base64ReadableByteChannel
+     * 
+     * @param channel underlying channel containing base64 encoded data
+     * @param convertor base64 char to byte convertor
+     * @param bufferSize number of encoded bytes read ahead
+     */
+    public Base64ReadableByteChannel(ReadableByteChannel channel, Base64Convertor.Convertor convertor, int bufferSize) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null!");
+        } else if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive!");
+        }
+        
+        this.channel = channel;
+        this.convertor = (convertor != null)? convertor : Base64Convertor.Convertor.STANDARD;
+        
+        // Room for an incomplete block & some more
+        this.encodedBuffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 64));
+        this.encodedBuffer.flip();
+        
+        this.decodedBuffer = ByteBuffer.allocate(3);
+        this.decodedBuffer.flip();
+    }
+    
+    /**
+     * Read decoded bytes, the underlying channel is read only if nothing can be decoded from bytes read ahead
+     * 
+     * @param dst buffer into which bytes are to be transferred
+     * @return number of bytes read, possibly 0 if the underlying channel is non-blocking & has nothing to read,
+     *         -1 if end of channel is reached
+     * @throws IOException
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        
+        int start = dst.position();
+        while (true) {
+            if (decodedBuffer.hasRemaining()) {
+                int l = Math.min(decodedBuffer.remaining(), dst.remaining());
+                for (int i = 0; i < l; i++) {
+                    dst.put(decodedBuffer.get());
+                }
+            }
+            
+            if (!dst.hasRemaining()) {
+                break;
+            }
+            
+            CoderResult result = Base64Convertor.decode(encodedBuffer, dst, convertor, endReached);
+            if (result.isOverflow()) {
+                // Destination cannot hold the next block, it is decoded aside & transferred partially
+                decodedBuffer.clear();
+                Base64Convertor.decode(encodedBuffer, decodedBuffer, convertor, endReached);
+                decodedBuffer.flip();
+            } else if (dst.position() > start || endReached) {
+                break;
+            } else {
+                // Only an incomplete block left, read more
+                compactIncompleteBlock();
+                int r = channel.read(encodedBuffer);
+                encodedBuffer.flip();
+                
+                if (r < 0) {
+                    endReached = true;
+                } else if (r == 0) {
+                    break;
+                }
+            }
+        }
+        
+        int l = dst.position() - start;
+        if (l == 0 && endReached && !encodedBuffer.hasRemaining() && !decodedBuffer.hasRemaining()) {
+            return -1;
+        }
+        return l;
+    }
+    
+    /**
+     * Move mappable bytes of the incomplete block (3 at most) to the start of the encoded buffer & make it ready for put.
+     * Unmappable bytes in between are dropped, otherwise they could pile up until nothing can be read.
+     */
+    private void compactIncompleteBlock() {
+        int n = 0;
+        for (int i = encodedBuffer.position(), end = encodedBuffer.limit(); i < end; i++) {
+            byte b = encodedBuffer.get(i);
+            if (convertor.isEncodedByte(b)) {
+                encodedBuffer.put(n++, b);
+            }
+        }
+        
+        encodedBuffer.clear();
+        encodedBuffer.position(n);
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new ClosedChannelException();
+        }
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return channel != null && channel.isOpen();
+    }
+    
+    /**
+     * Close the underlying channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+    }
+}
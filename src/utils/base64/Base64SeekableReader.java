@@ -0,0 +1,241 @@
+package utils.base64;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Random access reader of base64 encoded data in decoded form<br><br>
+ * 
+ * Encoded data must be laid out as Base64Convertor.encode does, unchunked or chunked
+ * (CHUNK_SIZE characters per line, separated by \r\n), any trailing paddings & line breaks are allowed.
+ * Decoded positions are mapped to encoded positions arithmetically, only the requested range is read & decoded.
+ * Encoded data must not change while reading.
+ */
+public class Base64SeekableReader implements Closeable {
+    /**
+     * Encoded bytes read at a time, multiple of 4
+     */
+    private static final int READ_BLOCK_SIZE = 8192;
+    
+    /**
+     * Encoded data
+     */
+    private SeekableByteChannel channel;
+    
+    /**
+     * Base64 char to byte convertor
+     */
+    private Base64Convertor.Convertor convertor;
+    
+    /**
+     * Flag indicating encoded data is chunked
+     */
+    private boolean chunked;
+    
+    /**
+     * Number of encoded characters, line breaks & paddings excluded
+     */
+    private long encodedChars;
+    
+    /**
+     * Encoded bytes read, reused for every block
+     */
+    private ByteBuffer encodedBuffer;
+    
+    /**
+     * Decoded bytes, reused for every block
+     */
+    private byte[] decodedBytes;
+    
+    /**
+     * Decoder carrying incomplete blocks between encoded blocks, reset for every read
+     */
+    private Base64Convertor.StreamDecoder decoder;
+    
+    /**
+     * Construct a Base64SeekableReader over the channel
+     * 
+     * @param channel channel containing base64 encoded data
+     * @param convertor target convertor
+     * @param chunked encoded data is chunked
+     * @throws IOException
+     */
+    public Base64SeekableReader(SeekableByteChannel channel, Base64Convertor.Convertor convertor, boolean chunked)
+            throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null!");
+        }
+        
+        this.channel = channel;
+        this.convertor = (convertor != null)? convertor : Base64Convertor.Convertor.STANDARD;
+        this.chunked = chunked;
+        this.encodedBuffer = ByteBuffer.allocate(READ_BLOCK_SIZE);
+        // Values carried over from previous block may complete one more block
+        this.decodedBytes = new byte[Base64Convertor.maxDecodedLength(READ_BLOCK_SIZE) + 3];
+        this.decoder = new Base64Convertor.StreamDecoder(this.convertor);
+        
+        this.encodedChars = countEncodedChars();
+    }
+    
+    /**
+     * Construct a Base64SeekableReader over the file
+     * 
+     * @param file file containing base64 encoded data
+     * @param convertor target convertor
+     * @param chunked encoded data is chunked
+     * @throws IOException
+     */
+    public Base64SeekableReader(RandomAccessFile file, Base64Convertor.Convertor convertor, boolean chunked)
+            throws IOException {
+        this(file.getChannel(), convertor, chunked);
+    }
+    
+    /**
+     * Count encoded characters, trailing paddings & line breaks are excluded
+     * 
+     * @return number of encoded characters
+     * @throws IOException
+     */
+    private long countEncodedChars() throws IOException {
+        long end = channel.size();
+        
+        // Scan back to the last encoded character, a block at a time
+        while (end > 0) {
+            encodedBuffer.clear();
+            encodedBuffer.limit((int)Math.min(end, encodedBuffer.capacity()));
+            
+            long start = end - encodedBuffer.limit();
+            readFully(start, encodedBuffer);
+            if (encodedBuffer.hasRemaining()) {
+                throw new IOException("Unexpected end of channel!");
+            }
+            
+            int i = encodedBuffer.limit();
+            while (i > 0 && !convertor.isEncodedByte(encodedBuffer.get(i - 1))) {
+                i--;
+            }
+            
+            end = start + i;
+            if (i > 0) {
+                break;
+            }
+        }
+        
+        return Base64Convertor.charsBefore(end, chunked);
+    }
+    
+    /**
+     * Read encoded bytes until the buffer is full, end of channel reached or nothing is read
+     * 
+     * @param position encoded position
+     * @param buffer buffer for which data is read
+     * @throws IOException
+     */
+    private void readFully(long position, ByteBuffer buffer) throws IOException {
+        channel.position(position);
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // Continue until full, a channel reading nothing would never fill it
+        }
+    }
+    
+    /**
+     * Retrieve the decoded length
+     * 
+     * @return number of decoded bytes
+     */
+    public long size() {
+        return Base64Convertor.decodedLength(encodedChars);
+    }
+    
+    /**
+     * Read decoded bytes from decoded position
+     * 
+     * @param position decoded position
+     * @param bytes buffer for which data is read
+     * @return length of data read, -1 is returned when position is not less than decoded length
+     * @throws IOException
+     */
+    public int read(long position, byte[] bytes) throws IOException {
+        return read(position, bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Read decoded bytes from decoded position, only the encoded blocks covering the range are read & decoded
+     * 
+     * @param position decoded position
+     * @param bytes buffer for which data is read
+     * @param offset start offset of the buffer
+     * @param length maximum length of data to be read
+     * @return length of data read, -1 is returned when position is not less than decoded length
+     * @throws IOException
+     */
+    public synchronized int read(long position, byte[] bytes, int offset, int length) throws IOException {
+        if (channel == null) {
+            throw new IOException("Channel closed!");
+        } else if (position < 0) {
+            throw new IllegalArgumentException("Position must not be negative!");
+        } else if (offset < 0 || length < 0 || offset > bytes.length || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        } else if (position >= size()) {
+            return -1;
+        } else if (length == 0) {
+            return 0;
+        }
+        
+        length = (int)Math.min(length, size() - position);
+        
+        // Encoded characters of the blocks covering the range, the first block starts at position / 3
+        long chars = position / 3 * 4;
+        long charsEnd = Math.min((position + length + 2) / 3 * 4, encodedChars);
+        int lead = (int)(position % 3);
+        
+        decoder.reset();
+        long encodedPosition = Base64Convertor.positionOf(chars, chunked);
+        long encodedEnd = Math.min(Base64Convertor.positionOf(charsEnd, chunked), channel.size());
+        
+        int l = 0;
+        while (l < length) {
+            int d;
+            if (encodedPosition < encodedEnd) {
+                encodedBuffer.clear();
+                encodedBuffer.limit((int)Math.min(encodedBuffer.capacity(), encodedEnd - encodedPosition));
+                readFully(encodedPosition, encodedBuffer);
+                if (encodedBuffer.position() == 0) {
+                    throw new IOException("Unexpected end of channel!");
+                }
+                
+                d = decoder.decode(encodedBuffer.array(), 0, encodedBuffer.position(), decodedBytes, 0);
+                encodedPosition += encodedBuffer.position();
+            } else {
+                // Incomplete last block
+                d = decoder.finish(decodedBytes, 0);
+                if (d == 0) {
+                    break;
+                }
+            }
+            
+            int c = Math.min(d - lead, length - l);
+            if (c > 0) {
+                System.arraycopy(decodedBytes, lead, bytes, offset + l, c);
+                l += c;
+            }
+            lead = Math.max(0, lead - d);
+        }
+        
+        return l;
+    }
+    
+    /**
+     * Close the underlying channel
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,282 @@
+package utils.base64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writable channel encoding what is written into it to the underlying channel,
+ * the channel counterpart of Base64OutputStream.<br><br>
+ * 
+ * Encoded bytes are kept in a direct buffer until the underlying channel accepts them,
+ * non-blocking channels are supported: write only consumes what can be encoded while earlier encoded bytes are
+ * pending, the incomplete block (less than 3 bytes) is kept until more bytes are written or encoding is finished.
+ * Call finish until it returns true before closing a non-blocking channel.
+ */
+public class Base64WritableByteChannel implements WritableByteChannel {
+    /**
+     * Default buffer size for encoded data
+     */
+    private static final int DEFAULT_ENCODED_BYTE_COUNT = 4096;
+    
+    /**
+     * Default line break \r\n
+     */
+    private static final byte[] DEFAULT_LINE_BREAK_BYTES = {'\r', '\n'};
+    
+    /**
+     * Underlying channel
+     */
+    private WritableByteChannel channel;
+    
+    /**
+     * Base64 char to byte convertor
+     */
+    private Base64Convertor.Convertor convertor;
+    
+    /**
+     * Flags indicating data should chunked / padded
+     */
+    private boolean chunked, padding;
+    
+    /**
+     * Padding byte
+     */
+    private byte paddingByte;
+    
+    /**
+     * bytes used for line break
+     */
+    private byte[] lineBreakBytes;
+    
+    /**
+     * Encoded bytes not yet accepted by the underlying channel, always ready for get
+     */
+    private ByteBuffer encodedBuffer;
+    
+    /**
+     * Unencoded bytes of the incomplete block
+     */
+    private byte[] pendingBytes = new byte[3];
+    
+    /**
+     * Number of bytes in pendingBytes
+     */
+    private int pendingLength;
+    
+    /**
+     * Counter recording encoded byte (line breaks excluded)
+     */
+    private long encodedByteWrote;
+    
+    /**
+     * Flag indicating the final block has been encoded
+     */
+    private boolean finished;
+    
+    /**
+     * Construct a Base64WritableByteChannel with default settings: No line break & paddings, Standard convertor
+     * 
+     * @param channel underlying channel
+     */
+    public Base64WritableByteChannel(WritableByteChannel channel) {
+        this(channel, Base64Convertor.Convertor.STANDARD, false, false);
+    }
+    
+    /**
+     * Construct a Base64WritableByteChannel
+     * 
+     * @param channel underlying channel
+     * @param convertor base64 char to byte convertor
+     * @param chunked flag indicating data should be chunked
+     * @param padding flag indicating data should be padded
+     */
+    public Base64WritableByteChannel(
+        WritableByteChannel channel, Base64Convertor.Convertor convertor, boolean chunked, boolean padding
+    ) {
+        this(
+            channel, convertor, chunked, padding, Base64Convertor.PADDING_BYTE, DEFAULT_LINE_BREAK_BYTES,
+            DEFAULT_ENCODED_BYTE_COUNT
+        );
+    }
+    
+    /**
+     * Construct a Base64WritableByteChannel
+     * 
+     * @param channel underlying channel
+     * @param convertor base64 char to byte convertor
+     * @param chunked flag indicating data should be chunked
+     * @param padding flag indicating data should be padded
+     * @param paddingByte padding byte
+     * @param lineBreakBytes byte used for line breaks
+     * @param bufferSize number of encoded bytes buffered (line breaks included)
+     */
+    public Base64WritableByteChannel(
+        WritableByteChannel channel, Base64Convertor.Convertor convertor, boolean chunked, boolean padding,
+        byte paddingByte, byte[] lineBreakBytes, int bufferSize
+    ) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel must not be null!");
+        } else if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive!");
+        }
+        
+        this.channel = channel;
+        this.convertor = (convertor != null)? convertor : Base64Convertor.Convertor.STANDARD;
+        
+        this.chunked = chunked;
+        this.padding = padding;
+        
+        this.paddingByte = paddingByte;
+        
+        this.lineBreakBytes = lineBreakBytes;
+        
+        // Room for a line break & the final block at least
+        this.encodedBuffer = ByteBuffer.allocateDirect(Math.max(bufferSize, lineBreakBytes.length + 4));
+        this.encodedBuffer.flip();
+    }
+    
+    /**
+     * Encode bytes & write them to the underlying channel
+     * 
+     * @param src buffer from which bytes are to be encoded
+     * @return number of bytes consumed, possibly less than remaining bytes of src
+     *         if the underlying channel is non-blocking & cannot accept all encoded bytes
+     * @throws IOException
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        if (finished) {
+            throw new IllegalStateException("Encoding finished!");
+        }
+        
+        int start = src.position();
+        while (flush() && src.hasRemaining()) {
+            encodedBuffer.clear();
+            
+            if (pendingLength > 0) {
+                // Complete the incomplete block before encoding src directly
+                int l = Math.min(3 - pendingLength, src.remaining());
+                src.get(pendingBytes, pendingLength, l);
+                pendingLength += l;
+                
+                if (pendingLength == 3) {
+                    encodeGroups(ByteBuffer.wrap(pendingBytes));
+                    pendingLength = 0;
+                }
+            }
+            
+            if (pendingLength == 0) {
+                encodeGroups(src);
+                
+                if (src.remaining() < 3) {
+                    pendingLength = src.remaining();
+                    src.get(pendingBytes, 0, pendingLength);
+                }
+            }
+            
+            encodedBuffer.flip();
+        }
+        
+        return src.position() - start;
+    }
+    
+    /**
+     * Encode complete blocks into the encoded buffer with line breaks inline, as much as the buffer holds
+     * 
+     * @param src buffer from which bytes are to be encoded
+     */
+    private void encodeGroups(ByteBuffer src) {
+        encodedByteWrote = Base64Encoder.encodeLines(
+            src, encodedBuffer, convertor, chunked? lineBreakBytes : null, encodedByteWrote, false
+        );
+    }
+    
+    /**
+     * Write pending encoded bytes to the underlying channel,
+     * the incomplete block keeps unencoded.
+     * 
+     * @return true if all encoded bytes are written, false if the underlying channel is non-blocking & not ready
+     * @throws IOException
+     */
+    public boolean flush() throws IOException {
+        ensureOpen();
+        while (encodedBuffer.hasRemaining()) {
+            if (channel.write(encodedBuffer) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Encode the incomplete block with paddings & write everything to the underlying channel,
+     * nothing can be written afterward.
+     * 
+     * @return true if all encoded bytes are written, false if the underlying channel is non-blocking & not ready
+     * @throws IOException
+     */
+    public boolean finish() throws IOException {
+        if (!flush()) {
+            return false;
+        }
+        
+        if (!finished) {
+            finished = true;
+            encodedBuffer.clear();
+            
+            if (pendingLength > 0) {
+                encodedByteWrote = Base64Encoder.encodeLines(
+                    ByteBuffer.wrap(pendingBytes, 0, pendingLength), encodedBuffer, convertor,
+                    chunked? lineBreakBytes : null, encodedByteWrote, true
+                );
+                
+                if (padding) {
+                    for (int i = pendingLength; i < 3; i++) {
+                        encodedBuffer.put(paddingByte);
+                    }
+                }
+            }
+            pendingLength = 0;
+            
+            encodedBuffer.flip();
+        }
+        
+        return flush();
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new ClosedChannelException();
+        }
+    }
+    
+    @Override
+    public boolean isOpen() {
+        return channel != null && channel.isOpen();
+    }
+    
+    /**
+     * Finish encoding & close the underlying channel
+     * 
+     * @throws IOException if the underlying channel is non-blocking & did not accept all encoded bytes
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            // Closed already
+            return;
+        }
+        
+        try {
+            if (!finish()) {
+                throw new IOException("Encoded bytes not fully written!");
+            }
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+}
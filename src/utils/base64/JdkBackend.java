@@ -0,0 +1,70 @@
+package utils.base64;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Backend delegating encoding to java.util.Base64, which is intrinsified by HotSpot on supported platforms<br><br>
+ * 
+ * Only STANDARD & URL_SAFE convertors share their alphabets with java.util.Base64.
+ * Decoding is never delegated (see {@link #decode}), it is done word-at-a-time as the swar backend does,
+ * so is encoding of short source ranges.
+ */
+final class JdkBackend implements Base64Backend {
+    /**
+     * Minimum number of bytes delegated to java.util.Base64 when only part of the source is encoded,
+     * the encoded result is allocated & copied then, which costs more than swar encoding of shorter ranges
+     * (e.g. lines of chunked data)
+     */
+    private static final int MIN_DELEGATED_LENGTH = 3 * 64;
+    
+    /**
+     * Backend of decoding & short encoding, see {@link #decode}
+     */
+    private final Base64Backend tail = new SwarBackend();
+    
+    @Override
+    public String name() {
+        return "jdk";
+    }
+    
+    @Override
+    public boolean supports(Base64Convertor.Convertor convertor) {
+        return convertor == Base64Convertor.Convertor.STANDARD || convertor == Base64Convertor.Convertor.URL_SAFE;
+    }
+    
+    @Override
+    public int encode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        int len = (send - soffset) / 3 * 3;
+        if (len == 0) {
+            return soffset;
+        }
+        
+        Base64.Encoder encoder = (convertor == Base64Convertor.Convertor.STANDARD)?
+                Base64.getEncoder() : Base64.getUrlEncoder();
+        
+        // java.util.Base64 encodes into a destination array at offset 0 only, whole source encoded in place
+        if (soffset == 0 && len == src.length && doffset == 0) {
+            encoder.encode(src, dest);
+            return len;
+        } else if (len < MIN_DELEGATED_LENGTH) {
+            return tail.encode(src, soffset, send, dest, doffset, convertor);
+        }
+        
+        // Heap buffer encoding works on the array range directly, no padding for complete blocks
+        ByteBuffer encoded = encoder.encode(ByteBuffer.wrap(src, soffset, len));
+        encoded.get(dest, doffset, encoded.remaining());
+        
+        return soffset + len;
+    }
+    
+    @Override
+    public int decode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        /*
+         * AVX-512 decoding intrinsic loses data on certain inputs (JDK-8321599), reproduced on 17.0.9 & gone with
+         * -XX:-UseBASE64Intrinsics. Fixed update releases differ between release lines & the outcome is wrong bytes
+         * rather than a failure, so decoding is not delegated on any version instead of gating on Runtime.version().
+         */
+        return tail.decode(src, soffset, send, dest, doffset, convertor);
+    }
+}
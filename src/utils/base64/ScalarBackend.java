@@ -0,0 +1,27 @@
+package utils.base64;
+
+/**
+ * Scalar backend, processing nothing by itself so that all blocks go through the built-in scalar code
+ * of Base64Convertor, one block at a time. Always available as the last resort.
+ */
+final class ScalarBackend implements Base64Backend {
+    @Override
+    public String name() {
+        return "scalar";
+    }
+    
+    @Override
+    public boolean supports(Base64Convertor.Convertor convertor) {
+        return true;
+    }
+    
+    @Override
+    public int encode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        return soffset;
+    }
+    
+    @Override
+    public int decode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        return soffset;
+    }
+}
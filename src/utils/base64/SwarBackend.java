@@ -0,0 +1,121 @@
+package utils.base64;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Word-at-a-time (SWAR) backend, processing 2 blocks per word with wide lookup tables
+ */
+final class SwarBackend implements Base64Backend {
+    /**
+     * Word views of byte arrays
+     */
+    private static final VarHandle LONG_VIEW  = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW   = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORT_VIEW = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    
+    /**
+     * Wide tables of every convertor (indexed by convertor ordinal)<br>
+     * Built on first use, convertors may not yet be initialized when this backend is created.
+     */
+    private static class Tables {
+        /**
+         * Encoding tables mapping 12bit value to its 2 characters (high byte first)
+         */
+        private static final char[][] PAIR_ALPHABETS;
+        
+        /**
+         * Decoding tables for each character position of a block,
+         * values are pre-shifted to their position within the 24bit block, unmappable byte is -1
+         */
+        private static final int[][][] SHIFTED_DECODABETS;
+        
+        static {
+            Base64Convertor.Convertor[] convertors = Base64Convertor.Convertor.values();
+            
+            PAIR_ALPHABETS = new char[convertors.length][4096];
+            SHIFTED_DECODABETS = new int[convertors.length][4][256];
+            
+            for (Base64Convertor.Convertor convertor : convertors) {
+                char[] pairs = PAIR_ALPHABETS[convertor.ordinal()];
+                int[][] shifted = SHIFTED_DECODABETS[convertor.ordinal()];
+                
+                for (int i = 0; i < pairs.length; i++) {
+                    pairs[i] = (char)(convertor.encode(i >>> 6) << 8 | convertor.encode(i & 0x3F));
+                }
+                
+                for (int[] decodabets : shifted) {
+                    Arrays.fill(decodabets, -1);
+                }
+                
+                for (int v = 0; v < 64; v++) {
+                    int c = convertor.encode(v);
+                    for (int i = 0; i < 4; i++) {
+                        shifted[i][c] = v << (18 - i * 6);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Override
+    public String name() {
+        return "swar";
+    }
+    
+    @Override
+    public boolean supports(Base64Convertor.Convertor convertor) {
+        return true;
+    }
+    
+    @Override
+    public int encode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        char[] pairs = Tables.PAIR_ALPHABETS[convertor.ordinal()];
+        int si = soffset, di = doffset;
+        
+        // 2 blocks per word: 6 bytes read as the high bits of a long, 8 characters written as a long
+        for (int wend = send - 8; si <= wend; si += 6) {
+            long bits = (long)LONG_VIEW.get(src, si);
+            
+            LONG_VIEW.set(dest, di,
+                (long)pairs[(int)(bits >>> 52)] << 48
+                | (long)pairs[(int)(bits >>> 40) & 0xFFF] << 32
+                | (long)pairs[(int)(bits >>> 28) & 0xFFF] << 16
+                | pairs[(int)(bits >>> 16) & 0xFFF]
+            );
+            di += 8;
+        }
+        return si;
+    }
+    
+    @Override
+    public int decode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        int[][] shifted = Tables.SHIFTED_DECODABETS[convertor.ordinal()];
+        int[] d0 = shifted[0], d1 = shifted[1], d2 = shifted[2], d3 = shifted[3];
+        int si = soffset, di = doffset;
+        
+        // 2 blocks per word: 8 characters decoded to 48bit, written as an int & a short
+        for (int wend = send - 8; si <= wend; si += 8) {
+            int hi = d0[src[si] & 0xFF] | d1[src[si + 1] & 0xFF] | d2[src[si + 2] & 0xFF] | d3[src[si + 3] & 0xFF];
+            int lo = d0[src[si + 4] & 0xFF] | d1[src[si + 5] & 0xFF] | d2[src[si + 6] & 0xFF] | d3[src[si + 7] & 0xFF];
+            
+            // Any unmappable byte makes the whole value negative
+            if ((hi | lo) < 0) {
+                if (hi >= 0) {
+                    dest[di++] = (byte)(hi >> 16);
+                    dest[di++] = (byte)(hi >> 8);
+                    dest[di++] = (byte)hi;
+                    si += 4;
+                }
+                break;
+            }
+            
+            INT_VIEW.set(dest, di, hi << 8 | lo >>> 16);
+            SHORT_VIEW.set(dest, di + 4, (short)lo);
+            di += 6;
+        }
+        return si;
+    }
+}
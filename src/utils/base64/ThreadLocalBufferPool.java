@@ -0,0 +1,82 @@
+package utils.base64;
+
+/**
+ * Buffer pool caching a few released buffers per thread, no locking is involved<br><br>
+ * 
+ * Buffers are matched by exact size, streams of the same settings share their buffers.
+ * Buffers larger than the size limit are never cached.
+ */
+public final class ThreadLocalBufferPool implements Base64BufferPool {
+    /**
+     * Default number of buffers cached per thread
+     */
+    public static final int DEFAULT_MAX_BUFFERS = 8;
+    
+    /**
+     * Default size limit of cached buffers
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 16;
+    
+    private final int maxSize;
+    
+    /**
+     * Cached buffers of every thread, null for empty slot
+     */
+    private final ThreadLocal<byte[][]> cache;
+    
+    /**
+     * Construct a ThreadLocalBufferPool with default limits
+     */
+    public ThreadLocalBufferPool() {
+        this(DEFAULT_MAX_BUFFERS, DEFAULT_MAX_SIZE);
+    }
+    
+    /**
+     * Construct a ThreadLocalBufferPool
+     * 
+     * @param maxBuffers number of buffers cached per thread
+     * @param maxSize size limit of cached buffers
+     */
+    public ThreadLocalBufferPool(int maxBuffers, int maxSize) {
+        if (maxBuffers <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("Limits must be positive!");
+        }
+        
+        this.maxSize = maxSize;
+        this.cache = ThreadLocal.withInitial(() -> new byte[maxBuffers][]);
+    }
+    
+    @Override
+    public byte[] acquire(int size) {
+        if (size <= maxSize) {
+            byte[][] buffers = cache.get();
+            for (int i = 0; i < buffers.length; i++) {
+                byte[] buffer = buffers[i];
+                if (buffer != null && buffer.length == size) {
+                    buffers[i] = null;
+                    return buffer;
+                }
+            }
+        }
+        return new byte[size];
+    }
+    
+    @Override
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length > maxSize) {
+            return;
+        }
+        
+        byte[][] buffers = cache.get();
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null) {
+                buffers[i] = buffer;
+                return;
+            }
+        }
+        
+        // Cache is full, the oldest slot is replaced
+        System.arraycopy(buffers, 1, buffers, 0, buffers.length - 1);
+        buffers[buffers.length - 1] = buffer;
+    }
+}
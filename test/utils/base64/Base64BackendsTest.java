@@ -0,0 +1,110 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class Base64BackendsTest {
+    private final String forced = System.getProperty(Base64Backends.BACKEND_PROPERTY);
+    
+    @AfterEach
+    void restoreSelection() {
+        if (forced == null) {
+            System.clearProperty(Base64Backends.BACKEND_PROPERTY);
+        } else {
+            System.setProperty(Base64Backends.BACKEND_PROPERTY, forced);
+        }
+        
+        // Registering again selects active backends again
+        Base64Backends.register(SwarBackendTest.backend("swar"));
+    }
+    
+    @Test
+    void defaultOrder() {
+        System.clearProperty(Base64Backends.BACKEND_PROPERTY);
+        Base64Backends.register(SwarBackendTest.backend("swar"));
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            String expected = null;
+            for (String name : Arrays.asList("vector", "swar", "scalar")) {
+                if (expected == null && supported(name, convertor)) {
+                    expected = name;
+                }
+            }
+            
+            assertEquals(expected, Base64Backends.getBackend(convertor).name(), convertor.toString());
+        }
+    }
+    
+    @Test
+    void forcedBackendFallsBackToDefaultOrder() {
+        System.setProperty(Base64Backends.BACKEND_PROPERTY, "jdk");
+        Base64Backends.register(SwarBackendTest.backend("swar"));
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            boolean jdk = SwarBackendTest.backend("jdk").supports(convertor);
+            
+            assertEquals(jdk, Base64Backends.getBackend(convertor).name().equals("jdk"), convertor.toString());
+        }
+    }
+    
+    @Test
+    void everyBackendRoundTrip() {
+        for (Base64Backend backend : Base64Backends.getBackends()) {
+            System.setProperty(Base64Backends.BACKEND_PROPERTY, backend.name());
+            Base64Backends.register(SwarBackendTest.backend("swar"));
+            
+            for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+                for (boolean[] layout : Base64Samples.LAYOUTS) {
+                    for (int length : Base64Samples.LENGTHS) {
+                        byte[] data = Base64Samples.random(length, length);
+                        byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                        String description = backend.name() + " "
+                                + Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                        
+                        assertArrayEquals(
+                            expected, Base64Convertor.encode(data, convertor, layout[0], layout[1]), description
+                        );
+                        assertArrayEquals(data, Base64Convertor.decode(expected, convertor), description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void registerReplacesBackendOfSameName() {
+        Base64Backend swar = SwarBackendTest.backend("swar");
+        Base64Backend replacement = new SwarBackend();
+        
+        Base64Backends.register(replacement);
+        List<Base64Backend> backends = Base64Backends.getBackends();
+        
+        assertEquals(1, backends.stream().filter(b -> b.name().equals("swar")).count());
+        assertSame(replacement, SwarBackendTest.backend("swar"));
+        assertThrows(UnsupportedOperationException.class, () -> backends.remove(0));
+        
+        Base64Backends.register(swar);
+    }
+    
+    @Test
+    void nullBackendRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Base64Backends.register(null));
+    }
+    
+    /**
+     * @param name backend name
+     * @param convertor target convertor
+     * @return true if the backend is registered & supports the convertor
+     */
+    private static boolean supported(String name, Base64Convertor.Convertor convertor) {
+        return Base64Backends.getBackends().stream().anyMatch(b -> b.name().equals(name) && b.supports(convertor));
+    }
+}
@@ -0,0 +1,171 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class Base64BufferPoolsTest {
+    private final Base64BufferPool defaultPool = Base64BufferPools.getDefault();
+    
+    @AfterEach
+    void restoreDefault() {
+        Base64BufferPools.setDefault(defaultPool);
+    }
+    
+    @Test
+    void threadLocalPoolReusesReleasedBuffers() throws InterruptedException {
+        ThreadLocalBufferPool pool = new ThreadLocalBufferPool(2, 1000);
+        
+        byte[] buffer = pool.acquire(100);
+        assertEquals(100, buffer.length);
+        pool.release(buffer);
+        
+        // Buffers are matched by exact size & cached per thread
+        byte[][] other = new byte[1][];
+        Thread thread = new Thread(() -> other[0] = pool.acquire(100));
+        thread.start();
+        thread.join();
+        assertNotSame(buffer, other[0]);
+        assertEquals(101, pool.acquire(101).length);
+        assertSame(buffer, pool.acquire(100));
+        assertNotSame(buffer, pool.acquire(100));
+        
+        // Buffers beyond the size limit are never cached
+        byte[] large = pool.acquire(1001);
+        pool.release(large);
+        assertNotSame(large, pool.acquire(1001));
+        
+        // Oldest buffer is replaced once the cache is full
+        byte[] a = new byte[10], b = new byte[10], c = new byte[10];
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertSame(b, pool.acquire(10));
+        assertSame(c, pool.acquire(10));
+        assertNotSame(a, pool.acquire(10));
+        
+        assertThrows(IllegalArgumentException.class, () -> new ThreadLocalBufferPool(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ThreadLocalBufferPool(10, 0));
+    }
+    
+    @Test
+    void allocatingPoolNeverReuses() {
+        byte[] buffer = Base64BufferPools.ALLOCATING.acquire(10);
+        Base64BufferPools.ALLOCATING.release(buffer);
+        
+        assertEquals(10, buffer.length);
+        assertNotSame(buffer, Base64BufferPools.ALLOCATING.acquire(10));
+        assertThrows(IllegalArgumentException.class, () -> Base64BufferPools.setDefault(null));
+    }
+    
+    @Test
+    void streamsRoundTripWithGivenPool() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                for (int length : new int[] {0, 1, 2, 3, 57, 58, 1000, 10_000}) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Buffers come back dirty from the pool, content must not matter
+                    TrackingPool pool = new TrackingPool();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (OutputStream os = Base64OutputStream.builder(out)
+                        .convertor(convertor)
+                        .chunked(layout[0] && !url)
+                        .padding(layout[1] && !url)
+                        .bufferSize(300)
+                        .bufferPool(pool)
+                        .build()
+                    ) {
+                        Base64OutputStreamTest.write(os, data, 2);
+                    }
+                    assertArrayEquals(expected, out.toByteArray(), description);
+                    
+                    try (InputStream in = Base64InputStream.builder(new ByteArrayInputStream(expected))
+                        .convertor(convertor)
+                        .bufferSize(300)
+                        .bufferPool(pool)
+                        .build()
+                    ) {
+                        assertArrayEquals(data, Base64InputStreamTest.readAll(in, 1000), description);
+                    }
+                    
+                    pool.assertReleased(description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void codecCallsUseDefaultPool() throws IOException {
+        TrackingPool pool = new TrackingPool();
+        Base64BufferPools.setDefault(pool);
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Base64Convertor.encode(
+                        new ByteArrayInputStream(data), out, convertor, layout[0], layout[1], false
+                    );
+                    assertArrayEquals(expected, out.toByteArray(), description);
+                    
+                    out.reset();
+                    Base64Convertor.decode(new ByteArrayInputStream(expected), out, convertor, false);
+                    assertArrayEquals(data, out.toByteArray(), description);
+                    
+                    assertArrayEquals(expected, Base64Convertor.encode(data, convertor, layout[0], layout[1]));
+                    pool.assertReleased(description);
+                }
+            }
+        }
+        assertTrue(pool.acquired > 0);
+    }
+    
+    /**
+     * Pool handing out garbage filled buffers & checking every buffer is released once
+     */
+    private static class TrackingPool implements Base64BufferPool {
+        private final List<byte[]> borrowed = new ArrayList<>();
+        private int acquired;
+        
+        @Override
+        public synchronized byte[] acquire(int size) {
+            byte[] buffer = new byte[size];
+            Arrays.fill(buffer, (byte)'?');
+            borrowed.add(buffer);
+            acquired++;
+            return buffer;
+        }
+        
+        @Override
+        public synchronized void release(byte[] buffer) {
+            assertTrue(borrowed.removeIf(b -> b == buffer), "released buffer not borrowed");
+        }
+        
+        synchronized void assertReleased(String description) {
+            assertEquals(0, borrowed.size(), description + " buffers not released");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class Base64DecoderTest {
+    @Test
+    void fragmentedUpdatesRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            Base64Decoder decoder = new Base64Decoder(convertor);
+            
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Fragments splitting blocks & line breaks everywhere, the decoder is reused after finish
+                    for (int step : new int[] {1, 2, 3, 4, 5, 77, 78, 1000, Integer.MAX_VALUE}) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        for (int offset = 0; offset < encoded.length; offset += step) {
+                            int l = (int)Math.min(step, encoded.length - (long)offset);
+                            int maxLength = decoder.updateLength(l);
+                            
+                            byte[] decoded = decoder.update(encoded, offset, l);
+                            assertTrue(decoded.length <= maxLength, description + " step " + step);
+                            out.writeBytes(decoded);
+                        }
+                        
+                        int finishLength = decoder.finishLength();
+                        byte[] decoded = decoder.finish();
+                        assertEquals(finishLength, decoded.length, description + " step " + step);
+                        out.writeBytes(decoded);
+                        
+                        assertArrayEquals(data, out.toByteArray(), description + " step " + step);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void updateIntoDestination() {
+        byte[] data = Base64Samples.random(1000, 32);
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.ORDERED, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, Base64Convertor.Convertor.ORDERED, layout[0], layout[1]);
+            Base64Decoder decoder = new Base64Decoder(Base64Convertor.Convertor.ORDERED);
+            
+            // Written right after each other into a single destination, starting at an offset
+            byte[] dst = new byte[data.length + 10];
+            int di = 2;
+            for (int offset = 0; offset < encoded.length; offset += 77) {
+                di += decoder.update(encoded, offset, Math.min(77, encoded.length - offset), dst, di);
+            }
+            di += decoder.finish(dst, di);
+            
+            assertEquals(data.length + 2, di, description);
+            assertArrayEquals(data, Arrays.copyOfRange(dst, 2, di), description);
+        }
+    }
+    
+    @Test
+    void resetDiscardsIncompleteBlock() {
+        Base64Decoder decoder = new Base64Decoder();
+        assertArrayEquals(new byte[0], decoder.update("AQ".getBytes()));
+        assertEquals(1, decoder.finishLength());
+        decoder.reset();
+        
+        assertEquals(0, decoder.finishLength());
+        assertArrayEquals(new byte[] {1, 2, 3}, decoder.update("AQIDBA".getBytes()));
+        assertArrayEquals(new byte[] {4}, decoder.finish());
+        
+        // A single remaining character is not enough to make up a byte
+        decoder.update("AQIDB".getBytes());
+        assertEquals(0, decoder.finishLength());
+        assertArrayEquals(new byte[0], decoder.finish());
+    }
+    
+    @Test
+    void smallDestinationIsRejected() {
+        Base64Decoder decoder = new Base64Decoder();
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> decoder.update(new byte[8], 0, 8, new byte[5], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> decoder.update(new byte[8], 1, 8, new byte[6], 0));
+        assertEquals(0, decoder.update("AQI".getBytes(), 0, 3, new byte[0], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> decoder.finish(new byte[1], 0));
+    }
+}
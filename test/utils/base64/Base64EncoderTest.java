@@ -0,0 +1,104 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class Base64EncoderTest {
+    @Test
+    void fragmentedUpdatesRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                // Chunk & padding are ignored by URL_SAFE encoding only, the encoder is given the effective layout
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                Base64Encoder encoder = new Base64Encoder(convertor, layout[0] && !url, layout[1] && !url);
+                
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Fragments of every size up to a few lines, the encoder is reused after finish
+                    for (int step : new int[] {1, 2, 3, 4, 5, 56, 57, 58, 1000, Integer.MAX_VALUE}) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        for (int offset = 0; offset < length; offset += step) {
+                            int l = (int)Math.min(step, length - (long)offset);
+                            int expectedLength = encoder.updateLength(l);
+                            
+                            byte[] encoded = encoder.update(data, offset, l);
+                            assertEquals(expectedLength, encoded.length, description + " step " + step);
+                            out.writeBytes(encoded);
+                        }
+                        
+                        int finishLength = encoder.finishLength();
+                        byte[] encoded = encoder.finish();
+                        assertEquals(finishLength, encoded.length, description + " step " + step);
+                        out.writeBytes(encoded);
+                        
+                        assertArrayEquals(expected, out.toByteArray(), description + " step " + step);
+                    }
+                    assertArrayEquals(data, Base64Convertor.decode(expected, convertor), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void updateIntoDestination() {
+        byte[] data = Base64Samples.random(1000, 30);
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] expected = Base64Samples.expected(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            Base64Encoder encoder = new Base64Encoder(Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            
+            // Written right after each other into a single destination, starting at an offset
+            byte[] dst = new byte[expected.length + 2];
+            int di = 2;
+            for (int offset = 0; offset < data.length; offset += 77) {
+                di += encoder.update(data, offset, Math.min(77, data.length - offset), dst, di);
+            }
+            di += encoder.finish(dst, di);
+            
+            assertEquals(dst.length, di, description);
+            assertArrayEquals(expected, Arrays.copyOfRange(dst, 2, di), description);
+        }
+    }
+    
+    @Test
+    void resetDiscardsIncompleteBlock() {
+        Base64Encoder encoder = new Base64Encoder();
+        encoder.update(new byte[] {1, 2});
+        encoder.reset();
+        
+        assertEquals(0, encoder.finishLength());
+        assertArrayEquals("AQID".getBytes(), encoder.update(new byte[] {1, 2, 3, 4}));
+        assertArrayEquals("BA==".getBytes(), encoder.finish());
+        
+        // Custom padding & line breaks
+        encoder = new Base64Encoder(Base64Convertor.Convertor.STANDARD, true, true, (byte)'*', new byte[] {'\n'});
+        byte[] data = Base64Samples.random(100, 31);
+        String expected = new String(Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, true, true))
+            .replace("\r\n", "\n").replace('=', '*');
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(encoder.update(data));
+        out.writeBytes(encoder.finish());
+        assertEquals(expected, out.toString());
+    }
+    
+    @Test
+    void smallDestinationIsRejected() {
+        Base64Encoder encoder = new Base64Encoder();
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> encoder.update(new byte[6], 0, 6, new byte[7], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> encoder.update(new byte[6], 1, 6, new byte[8], 0));
+        assertEquals(0, encoder.update(new byte[2], 0, 2, new byte[0], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> encoder.finish(new byte[3], 0));
+    }
+}
@@ -0,0 +1,305 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class Base64InputStreamTest {
+    @Test
+    void roundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    try (InputStream in = new Base64InputStream(Base64Samples.trickle(encoded, 100), convertor)) {
+                        assertArrayEquals(data, readAll(in, 1000), description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void bufferSizesRoundTrip() throws IOException {
+        byte[] data = Base64Samples.random(10_000, 10);
+        byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, true, true);
+        
+        for (int bufferSize : new int[] {1, 2, 3, 4, 5, 77, 78, 4096, 20_000}) {
+            try (InputStream in = new Base64InputStream(
+                new ByteArrayInputStream(encoded), Base64Convertor.Convertor.STANDARD, bufferSize
+            )) {
+                assertArrayEquals(data, readAll(in, 333), "buffer size " + bufferSize);
+            }
+        }
+    }
+    
+    @Test
+    void singleByteReads() throws IOException {
+        byte[] data = Base64Samples.random(1000, 11);
+        byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.MY, true, false);
+        
+        try (InputStream in = new Base64InputStream(
+            new ByteArrayInputStream(encoded), Base64Convertor.Convertor.MY, 7
+        )) {
+            for (byte b : data) {
+                assertEquals(b & 0xFF, in.read());
+            }
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[10]));
+        }
+    }
+    
+    @Test
+    void largeReadsRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                byte[] data = Base64Samples.random(100_003, 12);
+                byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                
+                // Whole result at once, into an offset region guarded on both ends
+                byte[] bytes = new byte[data.length + 2];
+                bytes[0] = bytes[bytes.length - 1] = '#';
+                try (InputStream in = new Base64InputStream(new ByteArrayInputStream(encoded), convertor, 1000)) {
+                    assertEquals(data.length, in.read(bytes, 1, data.length), description);
+                    assertEquals(-1, in.read(bytes, 1, 1), description);
+                }
+                assertArrayEquals(data, Arrays.copyOfRange(bytes, 1, data.length + 1), description);
+                assertEquals('#', bytes[0], description);
+                assertEquals('#', bytes[bytes.length - 1], description);
+                
+                // Small & large reads alternated, read ahead bytes are consumed before decoding directly
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (InputStream in = new Base64InputStream(Base64Samples.trickle(encoded, 999), convertor, 1000)) {
+                    int r = 0;
+                    for (int i = 0; r != -1; i++) {
+                        byte[] b = new byte[(i % 2 == 0)? 1 + i % 5 : 5000 + i];
+                        if ((r = in.read(b)) > 0) {
+                            out.write(b, 0, r);
+                        }
+                    }
+                }
+                assertArrayEquals(data, out.toByteArray(), description);
+                
+                out.reset();
+                try (InputStream in = new Base64InputStream(new ByteArrayInputStream(encoded), convertor)) {
+                    in.transferTo(out);
+                }
+                assertArrayEquals(data, out.toByteArray(), description);
+            }
+        }
+    }
+    
+    @Test
+    void skipRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                boolean chunked = layout[0] && convertor != Base64Convertor.Convertor.URL_SAFE;
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int n : new int[] {0, 1, 2, 3, 4, 57, length / 2, length - 1, length, length + 5}) {
+                        int skipped = Math.max(0, Math.min(n, length));
+                        byte[] rest = Arrays.copyOfRange(data, skipped, length);
+                        
+                        // Declared layout (blocks skipped on encoded bytes) & unknown layout (decoded then dropped)
+                        for (boolean regular : new boolean[] {true, false}) {
+                            Base64InputStream.Builder builder = Base64InputStream
+                                .builder(Base64Samples.trickle(encoded, 1000))
+                                .convertor(convertor)
+                                .bufferSize(100);
+                            if (regular) {
+                                builder.layout(chunked);
+                            }
+                            
+                            try (InputStream in = builder.build()) {
+                                assertEquals(skipped, skipFully(in, n), description + " skip " + n);
+                                assertArrayEquals(rest, readAll(in, 1000), description + " skip " + n);
+                                assertEquals(0, in.skip(10), description + " skip " + n);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void skipBetweenReads() throws IOException {
+        byte[] data = Base64Samples.random(20_000, 13);
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                
+                try (InputStream in = Base64InputStream.builder(new ByteArrayInputStream(encoded))
+                    .convertor(convertor)
+                    .bufferSize(64)
+                    .layout(layout[0] && convertor != Base64Convertor.Convertor.URL_SAFE)
+                    .build()
+                ) {
+                    int position = 0;
+                    for (int i = 1; position < data.length; i++) {
+                        byte[] b = new byte[i % 7];
+                        int r = in.readNBytes(b, 0, b.length);
+                        assertArrayEquals(
+                            Arrays.copyOfRange(data, position, position + r), Arrays.copyOf(b, r), description
+                        );
+                        position += r;
+                        position += (int)skipFully(in, i * 37 % 1000);
+                    }
+                    assertEquals(data.length, position, description);
+                    assertEquals(-1, in.read(), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void availableIsAnEstimate() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                byte[] data = Base64Samples.random(10_000, 14);
+                byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                
+                try (InputStream in = new Base64InputStream(new ByteArrayInputStream(encoded), convertor, 100)) {
+                    int position = 0;
+                    while (position < data.length) {
+                        int available = in.available();
+                        assertTrue(available <= data.length - position, description + " position " + position);
+                        if (available > 0) {
+                            // Bytes announced available must be readable without reaching the end
+                            byte[] b = in.readNBytes(available);
+                            assertArrayEquals(
+                                Arrays.copyOfRange(data, position, position + available), b, description
+                            );
+                            position += available;
+                        } else {
+                            int r = in.read();
+                            assertEquals(data[position++] & 0xFF, r, description);
+                        }
+                    }
+                    assertEquals(0, in.available(), description);
+                    assertEquals(-1, in.read(), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void builderSettingsRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : new int[] {0, 1, 2, 3, 57, 58, 1000, 10_000}) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int bufferSize : new int[] {1, 4, 77, 8192}) {
+                        for (boolean buffered : new boolean[] {true, false}) {
+                            // Reads requested from the source, unbuffered sources see the stream's own reads only
+                            int[] max = new int[1];
+                            ByteArrayInputStream source = new ByteArrayInputStream(encoded) {
+                                @Override
+                                public synchronized int read(byte[] b, int off, int len) {
+                                    max[0] = Math.max(max[0], len);
+                                    return super.read(b, off, len);
+                                }
+                            };
+                            
+                            try (InputStream in = Base64InputStream.builder(source)
+                                .convertor(convertor)
+                                .bufferSize(bufferSize)
+                                .buffered(buffered)
+                                .build()
+                            ) {
+                                assertArrayEquals(
+                                    data, readAll(in, 500), description + " buffer size " + bufferSize + " " + buffered
+                                );
+                            }
+                            if (!buffered) {
+                                assertTrue(max[0] <= bufferSize, description + " buffer size " + bufferSize);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void invalidBufferSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Base64InputStream(
+            new ByteArrayInputStream(new byte[0]), Base64Convertor.Convertor.STANDARD, 0
+        ));
+        assertThrows(IllegalArgumentException.class, () -> Base64InputStream
+            .builder(new ByteArrayInputStream(new byte[0]))
+            .bufferSize(-1)
+            .build()
+        );
+    }
+    
+    @Test
+    void closedStreamIsRejected() throws IOException {
+        InputStream in = new Base64InputStream(new ByteArrayInputStream(Base64Convertor.encode(new byte[100])));
+        in.close();
+        
+        assertThrows(IOException.class, () -> in.read());
+        assertThrows(IOException.class, () -> in.read(new byte[10], 0, 10));
+        assertThrows(IOException.class, () -> in.skip(10));
+    }
+    
+    /**
+     * @param in input stream
+     * @param chunk number of bytes to read at a time
+     * @return every byte read until end of stream
+     * @throws IOException
+     */
+    static byte[] readAll(InputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = new byte[chunk];
+        
+        int r;
+        while ((r = in.read(bytes, 0, chunk)) != -1) {
+            out.write(bytes, 0, r);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * @param in input stream
+     * @param n number of bytes to skip
+     * @return number of bytes skipped, less than n at end of stream only
+     * @throws IOException
+     */
+    static long skipFully(InputStream in, long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            long s = in.skip(n - skipped);
+            if (s <= 0) {
+                if (in.read() == -1) {
+                    break;
+                }
+                s = 1;
+            }
+            skipped += s;
+        }
+        return skipped;
+    }
+}
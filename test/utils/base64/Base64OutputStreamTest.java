@@ -0,0 +1,207 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class Base64OutputStreamTest {
+    @Test
+    void writePatternsRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                // Chunk & padding are ignored by URL_SAFE encoding only, the stream is given the effective layout
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                boolean chunked = layout[0] && !url, padding = layout[1] && !url;
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Whole array at once, bytes one by one & writes of growing sizes across the buffer size
+                    for (int pattern = 0; pattern < 3; pattern++) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        try (OutputStream os = new Base64OutputStream(out, convertor, chunked, padding)) {
+                            write(os, data, pattern);
+                        }
+                        assertArrayEquals(expected, out.toByteArray(), description + " pattern " + pattern);
+                    }
+                    
+                    assertArrayEquals(data, Base64Convertor.decode(expected, convertor), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void largeWritesAreEncodedInBlocks() throws IOException {
+        byte[] data = Base64Samples.random(100_003, 18);
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] expected = Base64Samples.expected(data, standard, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, standard, layout[0], layout[1]);
+            
+            // Line breaks are inline, the underlying stream sees a write per buffer rather than per line
+            int[] writes = new int[1];
+            ByteArrayOutputStream out = new ByteArrayOutputStream() {
+                @Override
+                public synchronized void write(byte[] b, int off, int len) {
+                    writes[0]++;
+                    super.write(b, off, len);
+                }
+            };
+            
+            try (OutputStream os = Base64OutputStream.builder(out)
+                .chunked(layout[0])
+                .padding(layout[1])
+                .bufferSize(3000)
+                .buffered(false)
+                .build()
+            ) {
+                os.write(data, 0, 1);
+                os.write(data, 1, data.length - 1);
+            }
+            
+            assertArrayEquals(expected, out.toByteArray(), description);
+            assertTrue(writes[0] <= data.length / 3000 + 3, description + " writes " + writes[0]);
+        }
+    }
+    
+    @Test
+    void flushKeepsIncompleteBlock() throws IOException {
+        byte[] data = Base64Samples.random(100, 19);
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] expected = Base64Samples.expected(data, standard, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, standard, layout[0], layout[1]);
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (OutputStream os = new Base64OutputStream(out, layout[0], layout[1])) {
+                for (int i = 0; i < data.length; i++) {
+                    os.write(data[i]);
+                    os.flush();
+                    
+                    // Whole blocks only, the encoded bytes so far are a prefix of the final encoding
+                    byte[] flushed = out.toByteArray();
+                    assertEquals((i + 1) / 3 * 3, Base64Convertor.decode(flushed, standard).length, description);
+                    assertArrayEquals(Arrays.copyOf(expected, flushed.length), flushed, description + " flush " + i);
+                }
+            }
+            assertArrayEquals(expected, out.toByteArray(), description);
+        }
+    }
+    
+    @Test
+    void customPaddingAndLineBreaks() throws IOException {
+        byte[] data = Base64Samples.random(200, 20);
+        String encoded = new String(Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, true, true));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream os = new Base64OutputStream(
+            out, Base64Convertor.Convertor.STANDARD, true, true, (byte)'*', "\n"
+        )) {
+            os.write(data);
+        }
+        
+        assertEquals(encoded.replace("\r\n", "\n").replace('=', '*'), out.toString());
+    }
+    
+    @Test
+    void builderSettingsRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                for (int length : new int[] {0, 1, 2, 3, 57, 58, 1000, 10_000}) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int bufferSize : new int[] {1, 2, 3, 4, 77, 3072}) {
+                        for (boolean buffered : new boolean[] {true, false}) {
+                            // Unbuffered, the underlying stream sees a write per buffer of whole blocks
+                            int[] writes = new int[1];
+                            ByteArrayOutputStream out = new ByteArrayOutputStream() {
+                                @Override
+                                public synchronized void write(byte[] b, int off, int len) {
+                                    writes[0]++;
+                                    super.write(b, off, len);
+                                }
+                            };
+                            
+                            try (OutputStream os = Base64OutputStream.builder(out)
+                                .convertor(convertor)
+                                .chunked(layout[0] && !url)
+                                .padding(layout[1] && !url)
+                                .bufferSize(bufferSize)
+                                .buffered(buffered)
+                                .build()
+                            ) {
+                                write(os, data, 2);
+                            }
+                            
+                            String settings = description + " buffer size " + bufferSize + " " + buffered;
+                            assertArrayEquals(expected, out.toByteArray(), settings);
+                            if (!buffered) {
+                                assertTrue(writes[0] >= length / Math.max(3, bufferSize / 3 * 3), settings);
+                            } else {
+                                assertTrue(writes[0] <= expected.length / 8192 + 2, settings);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void invalidBufferSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Base64OutputStream
+            .builder(new ByteArrayOutputStream())
+            .bufferSize(0)
+            .build()
+        );
+    }
+    
+    @Test
+    void closedStreamIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream os = new Base64OutputStream(out, true, true);
+        os.write(new byte[] {1, 2});
+        os.close();
+        os.close();
+        
+        assertEquals("AQI=", out.toString());
+        assertThrows(IOException.class, () -> os.write(1));
+        assertThrows(IOException.class, () -> os.write(new byte[3]));
+        assertThrows(IOException.class, () -> os.flush());
+    }
+    
+    /**
+     * @param os output stream
+     * @param data bytes to write
+     * @param pattern 0 for a single write, 1 for byte by byte writes, 2 for writes of growing sizes
+     * @throws IOException
+     */
+    static void write(OutputStream os, byte[] data, int pattern) throws IOException {
+        if (pattern == 0) {
+            os.write(data);
+        } else if (pattern == 1) {
+            for (byte b : data) {
+                os.write(b);
+            }
+        } else {
+            for (int i = 0, l = 1; i < data.length; i += l, l = l * 3 + 1) {
+                os.write(data, i, Math.min(l, data.length - i));
+            }
+        }
+    }
+}
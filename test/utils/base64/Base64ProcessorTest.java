@@ -0,0 +1,387 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class Base64ProcessorTest {
+    @Test
+    void encodingRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                // Chunk & padding are ignored by URL_SAFE encoding only, the encoder is given the effective layout
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int batchSize : new int[] {7, 1000}) {
+                        Base64EncodingProcessor processor = new Base64EncodingProcessor(
+                            new Base64Encoder(convertor, layout[0] && !url, layout[1] && !url), batchSize
+                        );
+                        Collector collector = feed(processor, data, 1000, batchSize == 7);
+                        
+                        assertBatches(collector, batchSize, description + " batch " + batchSize);
+                        assertArrayEquals(expected, collector.out.toByteArray(), description + " batch " + batchSize);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void decodingRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int batchSize : new int[] {7, 1000}) {
+                        Collector collector = feed(
+                            new Base64DecodingProcessor(convertor, batchSize), encoded, 1000, batchSize == 7
+                        );
+                        
+                        assertBatches(collector, batchSize, description + " batch " + batchSize);
+                        assertArrayEquals(data, collector.out.toByteArray(), description + " batch " + batchSize);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void fragmentedUpstreamBuffers() {
+        byte[] data = Base64Samples.random(1000, 33);
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            
+            // Upstream buffers splitting blocks & line breaks everywhere, the incomplete block is carried over
+            for (int size : new int[] {1, 2, 3, 4, 5, 77}) {
+                Base64EncodingProcessor encoding = new Base64EncodingProcessor(
+                    Base64Convertor.Convertor.MY, layout[0], layout[1]
+                );
+                assertArrayEquals(
+                    encoded, feed(encoding, data, size, size % 2 == 0).out.toByteArray(), description + " size " + size
+                );
+                
+                Base64DecodingProcessor decoding = new Base64DecodingProcessor(Base64Convertor.Convertor.MY);
+                assertArrayEquals(
+                    data, feed(decoding, encoded, size, size % 2 == 1).out.toByteArray(), description + " size " + size
+                );
+            }
+        }
+    }
+    
+    @Test
+    void backpressureHoldsUpstream() {
+        // Every 3 upstream bytes make up a single batch of 4 characters
+        Base64EncodingProcessor processor = new Base64EncodingProcessor(new Base64Encoder(), 4);
+        Upstream upstream = new Upstream();
+        Collector collector = new Collector(2, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        assertEquals(1, upstream.requested);
+        
+        processor.onNext(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        processor.onNext(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        assertEquals(3, upstream.requested);
+        processor.onNext(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        
+        // Third batch waits for demand, upstream is not requested meanwhile
+        assertEquals(2, collector.buffers.size());
+        assertEquals(3, upstream.requested);
+        
+        collector.subscription.request(1);
+        assertEquals(3, collector.buffers.size());
+        assertEquals(4, upstream.requested);
+        
+        collector.subscription.request(Long.MAX_VALUE);
+        processor.onNext(ByteBuffer.wrap(new byte[] {4}));
+        processor.onComplete();
+        assertEquals("AQIDAQIDAQIDBA==", collector.out.toString());
+        assertTrue(collector.completed);
+        assertFalse(upstream.cancelled);
+    }
+    
+    @Test
+    void nonPositiveRequestSignalsError() {
+        Base64EncodingProcessor processor = new Base64EncodingProcessor(new Base64Encoder(), 100);
+        Upstream upstream = new Upstream();
+        Collector collector = new Collector(1, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        
+        processor.onNext(ByteBuffer.wrap(new byte[30]));
+        collector.subscription.request(0);
+        
+        assertTrue(upstream.cancelled);
+        assertTrue(collector.error instanceof IllegalArgumentException);
+        
+        // Signals after termination are ignored, the incomplete batch is never delivered
+        processor.onNext(ByteBuffer.wrap(new byte[300]));
+        processor.onComplete();
+        assertEquals(0, collector.buffers.size());
+        assertEquals(1, collector.terminals);
+    }
+    
+    @Test
+    void secondSubscriberIsRejected() {
+        Base64DecodingProcessor processor = new Base64DecodingProcessor();
+        Collector first = new Collector(Long.MAX_VALUE, false), second = new Collector(Long.MAX_VALUE, false);
+        processor.subscribe(first);
+        processor.subscribe(second);
+        
+        assertTrue(second.error instanceof IllegalStateException);
+        assertThrows(NullPointerException.class, () -> processor.subscribe(null));
+        
+        // First subscriber is not affected
+        Upstream upstream = new Upstream();
+        processor.onSubscribe(upstream);
+        processor.onNext(ByteBuffer.wrap("AQID".getBytes()));
+        processor.onComplete();
+        assertArrayEquals(new byte[] {1, 2, 3}, first.out.toByteArray());
+        assertTrue(first.completed);
+        
+        // Second upstream subscription is cancelled
+        Upstream another = new Upstream();
+        processor.onSubscribe(another);
+        assertTrue(another.cancelled);
+        assertEquals(0, another.requested);
+    }
+    
+    @Test
+    void cancelStopsUpstream() {
+        Base64EncodingProcessor processor = new Base64EncodingProcessor(new Base64Encoder(), 4);
+        Upstream upstream = new Upstream();
+        Collector collector = new Collector(Long.MAX_VALUE, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        
+        processor.onNext(ByteBuffer.wrap(new byte[5]));
+        collector.subscription.cancel();
+        assertTrue(upstream.cancelled);
+        
+        processor.onNext(ByteBuffer.wrap(new byte[6]));
+        processor.onComplete();
+        assertEquals(1, collector.buffers.size());
+        assertEquals(0, collector.terminals);
+    }
+    
+    @Test
+    void failuresGoDownstream() {
+        // Upstream error
+        Base64EncodingProcessor processor = new Base64EncodingProcessor();
+        Collector collector = new Collector(Long.MAX_VALUE, false);
+        processor.onSubscribe(new Upstream());
+        processor.subscribe(collector);
+        IOException failure = new IOException("upstream");
+        processor.onError(failure);
+        assertSame(failure, collector.error);
+        assertEquals(1, collector.terminals);
+        
+        // Transformation error, upstream is cancelled
+        IllegalStateException broken = new IllegalStateException("update");
+        processor = new Base64EncodingProcessor(new Base64Encoder() {
+            @Override
+            public int update(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+                throw broken;
+            }
+        }, 10);
+        Upstream upstream = new Upstream();
+        collector = new Collector(Long.MAX_VALUE, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        processor.onNext(ByteBuffer.wrap(new byte[3]));
+        assertTrue(upstream.cancelled);
+        assertSame(broken, collector.error);
+        
+        // Finish error after upstream completion, bytes encoded before are delivered first
+        IllegalStateException unfinished = new IllegalStateException("finish");
+        processor = new Base64EncodingProcessor(new Base64Encoder() {
+            @Override
+            public int finish(byte[] dst, int dstOff) {
+                throw unfinished;
+            }
+        }, 4);
+        upstream = new Upstream();
+        collector = new Collector(Long.MAX_VALUE, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        processor.onNext(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}));
+        processor.onComplete();
+        assertEquals("AQID", collector.out.toString());
+        assertSame(unfinished, collector.error);
+        assertFalse(collector.completed);
+        assertFalse(upstream.cancelled);
+    }
+    
+    @Test
+    void asynchronousPublisherRoundTrip() throws InterruptedException {
+        byte[] data = Base64Samples.random(100_003, 34);
+        
+        // Encoding chained into decoding, downstream requests a single buffer at a time
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+            Base64EncodingProcessor encoding = new Base64EncodingProcessor(
+                new Base64Encoder(Base64Convertor.Convertor.STANDARD, true, true), 100
+            );
+            Base64DecodingProcessor decoding = new Base64DecodingProcessor(Base64Convertor.Convertor.STANDARD, 333);
+            Collector collector = new Collector(1, true);
+            
+            publisher.subscribe(encoding);
+            encoding.subscribe(decoding);
+            decoding.subscribe(collector);
+            
+            for (int offset = 0; offset < data.length; offset += 1000) {
+                int l = Math.min(1000, data.length - offset);
+                publisher.submit((offset % 2000 == 0)? ByteBuffer.wrap(data, offset, l).slice()
+                    : ByteBuffer.allocateDirect(l).put(data, offset, l).flip());
+            }
+            publisher.close();
+            
+            assertTrue(collector.latch.await(10, TimeUnit.SECONDS), "not completed");
+            assertNull(collector.error);
+            assertBatches(collector, 333, "asynchronous");
+            assertArrayEquals(data, collector.out.toByteArray());
+        }
+    }
+    
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Base64EncodingProcessor(new Base64Encoder(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new Base64EncodingProcessor(null, 100));
+        assertThrows(
+            IllegalArgumentException.class, () -> new Base64DecodingProcessor(Base64Convertor.Convertor.STANDARD, -1)
+        );
+    }
+    
+    /**
+     * Feed input through upstream buffers of the given size, heap or direct, every buffer requested by the processor
+     * 
+     * @return collector of the whole output
+     */
+    private static Collector feed(Base64Processor processor, byte[] input, int size, boolean direct) {
+        Upstream upstream = new Upstream();
+        Collector collector = new Collector(Long.MAX_VALUE, false);
+        processor.onSubscribe(upstream);
+        processor.subscribe(collector);
+        
+        int pieces = 0;
+        for (int offset = 0; offset < input.length; offset += size) {
+            assertEquals(pieces + 1, upstream.requested, "one buffer at a time");
+            
+            int l = Math.min(size, input.length - offset);
+            // Heap buffers start at the offset within the whole input
+            processor.onNext(direct? ByteBuffer.allocateDirect(l).put(input, offset, l).flip()
+                : ByteBuffer.wrap(input, offset, l));
+            pieces++;
+        }
+        processor.onComplete();
+        
+        assertTrue(collector.completed);
+        assertFalse(upstream.cancelled);
+        assertEquals(1, collector.terminals);
+        return collector;
+    }
+    
+    /**
+     * Assert every buffer but the last is a whole batch
+     */
+    private static void assertBatches(Collector collector, int batchSize, String description) {
+        for (int i = 0; i < collector.buffers.size(); i++) {
+            int remaining = collector.buffers.get(i).remaining();
+            if (i < collector.buffers.size() - 1) {
+                assertEquals(batchSize, remaining, description + " buffer " + i);
+            } else {
+                assertTrue(remaining > 0 && remaining <= batchSize, description + " buffer " + i);
+            }
+        }
+    }
+    
+    /**
+     * Upstream subscription recording requests & cancellation, buffers are pushed by the test
+     */
+    private static class Upstream implements Flow.Subscription {
+        private long requested;
+        private boolean cancelled;
+        
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+    
+    /**
+     * Subscriber collecting buffers, requesting the initial number on subscribe & optionally one more per buffer
+     */
+    private static class Collector implements Flow.Subscriber<ByteBuffer> {
+        private final long initial;
+        private final boolean replenish;
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+        private volatile int terminals;
+        
+        Collector(long initial, boolean replenish) {
+            this.initial = initial;
+            this.replenish = replenish;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+        
+        @Override
+        public void onNext(ByteBuffer item) {
+            buffers.add(item);
+            out.write(item.array(), item.arrayOffset() + item.position(), item.remaining());
+            if (replenish) {
+                subscription.request(1);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminals++;
+            latch.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminals++;
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package utils.base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Sample data & expected encodings shared by tests, expected encodings come from java.util.Base64
+ * with alphabets mapped to the convertor.
+ */
+final class Base64Samples {
+    /**
+     * Lengths around block & line boundaries, and beyond the internal block sizes
+     */
+    static final int[] LENGTHS = {0, 1, 2, 3, 4, 5, 56, 57, 58, 113, 114, 115, 1000, 57 * 144 + 1, 100_003};
+    
+    /**
+     * Chunked & padding variants, {chunked, padding}
+     */
+    static final boolean[][] LAYOUTS = {{false, false}, {false, true}, {true, false}, {true, true}};
+    
+    private Base64Samples() {}
+    
+    /**
+     * @param length number of bytes
+     * @param seed random seed
+     * @return pseudo random bytes
+     */
+    static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Expected encoding of Base64Convertor, chunk & padding are ignored for URL_SAFE convertor
+     * 
+     * @param data binary bytes
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded
+     * @return expected encoded bytes
+     */
+    static byte[] expected(byte[] data, Base64Convertor.Convertor convertor, boolean chunked, boolean padding) {
+        if (convertor == Base64Convertor.Convertor.URL_SAFE) {
+            chunked = padding = false;
+        }
+        
+        Base64.Encoder encoder = chunked? Base64.getMimeEncoder() : Base64.getEncoder();
+        if (!padding) {
+            encoder = encoder.withoutPadding();
+        }
+        
+        byte[] encoded = encoder.encode(data);
+        for (int i = 0; i < encoded.length; i++) {
+            byte b = encoded[i];
+            if (b != '\r' && b != '\n' && b != '=') {
+                encoded[i] = convertor.encode(Base64Convertor.Convertor.STANDARD.decode(b));
+            }
+        }
+        return encoded;
+    }
+    
+    /**
+     * @param data binary bytes
+     * @param convertor target convertor
+     * @param chunked result should be chunked
+     * @param padding result should be padded
+     * @return description of a case for assertion messages
+     */
+    static String describe(byte[] data, Base64Convertor.Convertor convertor, boolean chunked, boolean padding) {
+        return convertor + " length " + data.length + (chunked? " chunked" : "") + (padding? " padded" : "");
+    }
+    
+    /**
+     * @param bytes bytes to be read
+     * @param max maximum number of bytes returned by a read
+     * @return input stream returning short reads, as sockets & pipes do
+     */
+    static InputStream trickle(byte[] bytes, int max) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, max));
+            }
+        };
+    }
+}
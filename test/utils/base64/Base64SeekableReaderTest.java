@@ -0,0 +1,148 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class Base64SeekableReaderTest {
+    private Path encoded;
+    
+    @BeforeEach
+    void createFile() throws IOException {
+        encoded = Files.createTempFile("base64", ".b64");
+    }
+    
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(encoded);
+    }
+    
+    @Test
+    void randomReadsRoundTrip() throws IOException {
+        Random random = new Random(15);
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                boolean chunked = layout[0] && convertor != Base64Convertor.Convertor.URL_SAFE;
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    Files.write(encoded, Base64Samples.expected(data, convertor, layout[0], layout[1]));
+                    
+                    try (Base64SeekableReader reader = new Base64SeekableReader(
+                        Files.newByteChannel(encoded), convertor, chunked
+                    )) {
+                        assertEquals(length, reader.size(), description);
+                        
+                        byte[] bytes = new byte[length];
+                        assertEquals(length == 0? -1 : length, reader.read(0, bytes), description);
+                        assertArrayEquals(data, bytes, description);
+                        
+                        for (int i = 0; i < 20 && length > 0; i++) {
+                            int position = random.nextInt(length);
+                            int l = random.nextInt(Math.min(length, 20_000) + 1);
+                            assertRange(reader, data, position, l, description);
+                        }
+                        assertEquals(-1, reader.read(length, new byte[1]), description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void readsAroundBlocksAndLines() throws IOException {
+        byte[] data = Base64Samples.random(57 * 200 + 2, 16);
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            String description = Base64Samples.describe(data, standard, layout[0], layout[1]);
+            Files.write(encoded, Base64Samples.expected(data, standard, layout[0], layout[1]));
+            
+            try (RandomAccessFile file = new RandomAccessFile(encoded.toFile(), "r");
+                Base64SeekableReader reader = new Base64SeekableReader(file, standard, layout[0])
+            ) {
+                // Ranges starting & ending at every offset around lines (57 bytes) & read blocks (6144 bytes)
+                for (int position : new int[] {0, 1, 2, 55, 56, 57, 58, 6143, 6144, 6145, data.length - 3}) {
+                    for (int l : new int[] {1, 2, 3, 4, 56, 57, 58, 6144, 6145, 20_000}) {
+                        assertRange(reader, data, position, l, description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void trailingPaddingsAndLineBreaksAreIgnored() throws IOException {
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            for (int length : new int[] {1, 2, 3, 57, 58, 10_000}) {
+                byte[] data = Base64Samples.random(length, length);
+                byte[] expected = Base64Samples.expected(data, standard, layout[0], layout[1]);
+                String description = Base64Samples.describe(data, standard, layout[0], layout[1]);
+                
+                byte[] trailed = Arrays.copyOf(expected, expected.length + 4);
+                trailed[expected.length] = '\r';
+                trailed[expected.length + 1] = '\n';
+                trailed[expected.length + 2] = '\r';
+                trailed[expected.length + 3] = '\n';
+                Files.write(encoded, trailed);
+                
+                try (Base64SeekableReader reader = new Base64SeekableReader(
+                    Files.newByteChannel(encoded), standard, layout[0]
+                )) {
+                    assertEquals(length, reader.size(), description);
+                    assertRange(reader, data, 0, length, description);
+                    assertRange(reader, data, length - 1, 1, description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void invalidArgumentsAreRejected() throws IOException {
+        Files.write(encoded, Base64Convertor.encode(Base64Samples.random(100, 17)));
+        
+        Base64SeekableReader reader = new Base64SeekableReader(
+            Files.newByteChannel(encoded), Base64Convertor.Convertor.STANDARD, false
+        );
+        assertThrows(IllegalArgumentException.class, () -> reader.read(-1, new byte[1]));
+        assertThrows(IndexOutOfBoundsException.class, () -> reader.read(0, new byte[1], 1, 1));
+        assertEquals(0, reader.read(0, new byte[1], 0, 0));
+        
+        reader.close();
+        assertThrows(IOException.class, () -> reader.read(0, new byte[1]));
+        assertThrows(IllegalArgumentException.class, () -> new Base64SeekableReader(
+            (SeekableByteChannel)null, Base64Convertor.Convertor.STANDARD, false
+        ));
+    }
+    
+    private static void assertRange(
+        Base64SeekableReader reader, byte[] data, int position, int length, String description
+    ) throws IOException {
+        int expected = Math.min(length, data.length - position);
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = bytes[bytes.length - 1] = '#';
+        
+        assertEquals(expected, reader.read(position, bytes, 1, length), description + " position " + position);
+        assertArrayEquals(
+            Arrays.copyOfRange(data, position, position + expected), Arrays.copyOfRange(bytes, 1, 1 + expected),
+            description + " position " + position + " length " + length
+        );
+        assertEquals('#', bytes[0], description);
+        assertEquals('#', bytes[bytes.length - 1], description);
+    }
+}
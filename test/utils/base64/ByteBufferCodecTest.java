@@ -0,0 +1,200 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.CoderResult;
+
+import org.junit.jupiter.api.Test;
+
+class ByteBufferCodecTest {
+    /**
+     * Buffer kinds: heap, heap slice (non zero array offset), direct, little endian direct
+     */
+    private static final int KINDS = 4;
+    
+    @Test
+    void wholeBuffersRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (int kind = 0; kind < KINDS; kind++) {
+                        // Encoding is never chunked, decoding takes chunked input as well
+                        byte[] unchunked = Base64Samples.expected(data, convertor, false, layout[1]);
+                        ByteBuffer src = wrap(data, kind), dst = allocate(unchunked.length, kind);
+                        
+                        assertEquals(
+                            CoderResult.UNDERFLOW, Base64Convertor.encode(src, dst, convertor, layout[1], true),
+                            description
+                        );
+                        assertEquals(0, src.remaining(), description);
+                        assertArrayEquals(unchunked, drain(dst), description);
+                        
+                        byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                        src = wrap(encoded, kind);
+                        dst = allocate(length, kind);
+                        
+                        assertEquals(
+                            CoderResult.UNDERFLOW, Base64Convertor.decode(src, dst, convertor, true), description
+                        );
+                        assertEquals(0, src.remaining(), description);
+                        assertArrayEquals(data, drain(dst), description + " kind " + kind);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void smallBuffersRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : new int[] {0, 1, 2, 3, 4, 57, 58, 1000, 10_000}) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] unchunked = Base64Samples.expected(data, convertor, false, layout[1]);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    boolean padding = layout[1];
+                    
+                    // Sources refilled & destinations drained between calls, incomplete blocks carried over
+                    for (int capacity : new int[] {6, 7, 64, 1001}) {
+                        for (int kind = 0; kind < KINDS; kind++) {
+                            String settings = description + " capacity " + capacity + " kind " + kind;
+                            
+                            assertArrayEquals(unchunked, pump(data, capacity, kind, (src, dst, end) ->
+                                Base64Convertor.encode(src, dst, convertor, padding, end)
+                            ), settings);
+                            assertArrayEquals(data, pump(encoded, capacity, kind, (src, dst, end) ->
+                                Base64Convertor.decode(src, dst, convertor, end)
+                            ), settings);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void overflowLeavesWholeBlocks() {
+        byte[] data = Base64Samples.random(100, 27);
+        byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, false, true);
+        
+        for (int kind = 0; kind < KINDS; kind++) {
+            ByteBuffer src = wrap(data, kind), dst = allocate(10, kind);
+            assertEquals(CoderResult.OVERFLOW, Base64Convertor.encode(src, dst));
+            assertEquals(data.length - 6, src.remaining());
+            assertEquals(8, dst.position());
+            
+            src = wrap(encoded, kind);
+            dst = allocate(10, kind);
+            assertEquals(CoderResult.OVERFLOW, Base64Convertor.decode(src, dst));
+            assertEquals(encoded.length - 12, src.remaining());
+            assertEquals(9, dst.position());
+            
+            // Padded last block needs 4 characters, unpadded 2 ~ 3
+            src = wrap(new byte[] {1, 2}, kind);
+            dst = allocate(3, kind);
+            assertEquals(CoderResult.OVERFLOW, Base64Convertor.encode(src, dst));
+            assertEquals(2, src.remaining());
+            assertEquals(
+                CoderResult.UNDERFLOW,
+                Base64Convertor.encode(src, dst, Base64Convertor.Convertor.STANDARD, false, true)
+            );
+            assertArrayEquals("AQI".getBytes(), drain(dst));
+        }
+    }
+    
+    @Test
+    void incompleteBlockIsLeftForMoreInput() {
+        byte[] data = Base64Samples.random(100, 28);
+        byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, false, false);
+        
+        ByteBuffer src = ByteBuffer.wrap(data), dst = ByteBuffer.allocate(200);
+        assertEquals(
+            CoderResult.UNDERFLOW, Base64Convertor.encode(src, dst, Base64Convertor.Convertor.STANDARD, true, false)
+        );
+        assertEquals(99, src.position());
+        assertEquals(132, dst.position());
+        
+        src = ByteBuffer.wrap(encoded);
+        dst = ByteBuffer.allocate(200);
+        assertEquals(
+            CoderResult.UNDERFLOW, Base64Convertor.decode(src, dst, Base64Convertor.Convertor.STANDARD, false)
+        );
+        assertEquals(132, src.position());
+        assertEquals(99, dst.position());
+    }
+    
+    /**
+     * Encoding or decoding step between buffers
+     */
+    private interface Coder {
+        CoderResult code(ByteBuffer src, ByteBuffer dst, boolean endOfInput);
+    }
+    
+    /**
+     * Feed input through a source buffer & collect output through a destination buffer, both of the capacity
+     */
+    private static byte[] pump(byte[] input, int capacity, int kind, Coder coder) {
+        ByteBuffer src = allocate(capacity, kind), dst = allocate(capacity, kind);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        int fed = 0;
+        for (int i = 0; ; i++) {
+            assertTrue(i <= input.length * 2 + 10, "no progress");
+            
+            int n = Math.min(src.remaining(), input.length - fed);
+            src.put(input, fed, n);
+            fed += n;
+            src.flip();
+            
+            boolean end = fed == input.length;
+            CoderResult result = coder.code(src, dst, end);
+            out.writeBytes(drain(dst));
+            dst.clear();
+            
+            if (end && result.isUnderflow() && !src.hasRemaining()) {
+                return out.toByteArray();
+            }
+            src.compact();
+        }
+    }
+    
+    private static ByteBuffer allocate(int capacity, int kind) {
+        switch (kind) {
+            case 0:
+                return ByteBuffer.allocate(capacity);
+            case 1:
+                return ByteBuffer.allocate(capacity + 3).position(3).slice();
+            case 2:
+                return ByteBuffer.allocateDirect(capacity);
+            default:
+                return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+    
+    private static ByteBuffer wrap(byte[] bytes, int kind) {
+        // Starting past the buffer start, positions are relative
+        ByteBuffer buffer = allocate(bytes.length + 1, kind);
+        buffer.position(1);
+        buffer.put(bytes).flip().position(1);
+        return buffer;
+    }
+    
+    /**
+     * @return bytes between buffer start & position, the buffer is flipped
+     */
+    private static byte[] drain(ByteBuffer buffer) {
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
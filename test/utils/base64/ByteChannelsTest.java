@@ -0,0 +1,243 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.junit.jupiter.api.Test;
+
+class ByteChannelsTest {
+    @Test
+    void blockingChannelsRoundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                // Chunk & padding are ignored by URL_SAFE encoding only, the channel is given the effective layout
+                boolean url = convertor == Base64Convertor.Convertor.URL_SAFE;
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    for (boolean direct : new boolean[] {false, true}) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        try (WritableByteChannel channel = new Base64WritableByteChannel(
+                            Channels.newChannel(out), convertor, layout[0] && !url, layout[1] && !url
+                        )) {
+                            writeAll(channel, data, 1000, direct);
+                        }
+                        assertArrayEquals(expected, out.toByteArray(), description + " direct " + direct);
+                        
+                        try (ReadableByteChannel channel = new Base64ReadableByteChannel(
+                            Channels.newChannel(new ByteArrayInputStream(expected)), convertor
+                        )) {
+                            assertArrayEquals(data, readAll(channel, 1000, direct), description + " direct " + direct);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void smallBuffersRoundTrip() throws IOException {
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] data = Base64Samples.random(10_000, 29);
+            byte[] expected = Base64Samples.expected(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            String description = Base64Samples.describe(data, Base64Convertor.Convertor.MY, layout[0], layout[1]);
+            
+            // Writes & reads smaller than a block, internal buffers smaller than a line
+            for (int size : new int[] {1, 2, 3, 4, 5, 77}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (WritableByteChannel channel = new Base64WritableByteChannel(
+                    Channels.newChannel(out), Base64Convertor.Convertor.MY, layout[0], layout[1],
+                    Base64Convertor.PADDING_BYTE, new byte[] {'\r', '\n'}, size
+                )) {
+                    writeAll(channel, data, size, size % 2 == 0);
+                }
+                assertArrayEquals(expected, out.toByteArray(), description + " size " + size);
+                
+                try (ReadableByteChannel channel = new Base64ReadableByteChannel(
+                    Channels.newChannel(new ByteArrayInputStream(expected)), Base64Convertor.Convertor.MY, size
+                )) {
+                    assertArrayEquals(data, readAll(channel, size, size % 2 == 1), description + " size " + size);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void nonBlockingChannelsRoundTrip() throws IOException {
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            for (int length : Base64Samples.LENGTHS) {
+                byte[] data = Base64Samples.random(length, length);
+                byte[] expected = Base64Samples.expected(data, standard, layout[0], layout[1]);
+                String description = Base64Samples.describe(data, standard, layout[0], layout[1]);
+                
+                // Partial writes & writes accepting nothing, retried until everything is consumed
+                StutteringChannel sink = new StutteringChannel(null, 7);
+                Base64WritableByteChannel writable = new Base64WritableByteChannel(
+                    sink, standard, layout[0], layout[1]
+                );
+                ByteBuffer src = ByteBuffer.wrap(data);
+                for (int i = 0; src.hasRemaining(); i++) {
+                    src.limit(Math.min(data.length, src.position() + 1 + i % 300));
+                    writable.write(src);
+                    src.limit(data.length);
+                }
+                while (!writable.finish()) {
+                    // Retried as a selector loop would
+                }
+                writable.close();
+                assertArrayEquals(expected, sink.out.toByteArray(), description);
+                
+                // Reads returning nothing in between, the incomplete block read so far is kept
+                Base64ReadableByteChannel readable = new Base64ReadableByteChannel(
+                    new StutteringChannel(expected, 5), standard, 16
+                );
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteBuffer dst = ByteBuffer.allocate(10);
+                int r, zeros = 0;
+                while ((r = readable.read(dst)) != -1) {
+                    zeros += (r == 0)? 1 : 0;
+                    dst.flip();
+                    out.write(dst.array(), 0, dst.limit());
+                    dst.clear();
+                }
+                assertArrayEquals(data, out.toByteArray(), description);
+                assertTrue(length < 100 || zeros > 0, description);
+            }
+        }
+    }
+    
+    @Test
+    void closedChannelsAreRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Base64WritableByteChannel writable = new Base64WritableByteChannel(
+            Channels.newChannel(out), Base64Convertor.Convertor.STANDARD, true, true
+        );
+        writable.write(ByteBuffer.wrap(new byte[] {1, 2}));
+        assertTrue(writable.finish());
+        assertThrows(IllegalStateException.class, () -> writable.write(ByteBuffer.wrap(new byte[1])));
+        writable.close();
+        writable.close();
+        
+        assertEquals("AQI=", out.toString());
+        assertFalse(writable.isOpen());
+        assertThrows(ClosedChannelException.class, () -> writable.write(ByteBuffer.wrap(new byte[1])));
+        
+        Base64ReadableByteChannel readable = new Base64ReadableByteChannel(
+            Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))
+        );
+        readable.close();
+        assertFalse(readable.isOpen());
+        assertThrows(ClosedChannelException.class, () -> readable.read(ByteBuffer.allocate(10)));
+        
+        // Encoded bytes never accepted by a non-blocking channel
+        StutteringChannel stuck = new StutteringChannel(null, 0);
+        Base64WritableByteChannel unfinished = new Base64WritableByteChannel(stuck);
+        unfinished.write(ByteBuffer.wrap(new byte[10]));
+        assertThrows(IOException.class, () -> unfinished.close());
+        assertFalse(stuck.isOpen());
+    }
+    
+    /**
+     * Write every byte from buffers of the given size, heap or direct
+     */
+    private static void writeAll(
+        WritableByteChannel channel, byte[] data, int size, boolean direct
+    ) throws IOException {
+        ByteBuffer buffer = direct? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        for (int offset = 0; offset < data.length; ) {
+            int l = Math.min(size, data.length - offset);
+            buffer.clear();
+            buffer.put(data, offset, l).flip();
+            
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            offset += l;
+        }
+    }
+    
+    /**
+     * Read every byte into buffers of the given size, heap or direct
+     */
+    private static byte[] readAll(ReadableByteChannel channel, int size, boolean direct) throws IOException {
+        ByteBuffer buffer = direct? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer.get());
+            }
+            buffer.clear();
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Non-blocking channel alternating between transferring nothing & at most max bytes
+     */
+    private static class StutteringChannel implements ReadableByteChannel, WritableByteChannel {
+        private final ByteBuffer in;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int max;
+        private boolean ready, open = true;
+        
+        StutteringChannel(byte[] in, int max) {
+            this.in = (in != null)? ByteBuffer.wrap(in) : null;
+            this.max = max;
+        }
+        
+        @Override
+        public int read(ByteBuffer dst) {
+            if (!in.hasRemaining()) {
+                return -1;
+            } else if (!(ready = !ready)) {
+                return 0;
+            }
+            
+            int l = Math.min(max, Math.min(in.remaining(), dst.remaining()));
+            dst.put(in.slice().limit(l));
+            in.position(in.position() + l);
+            return l;
+        }
+        
+        @Override
+        public int write(ByteBuffer src) {
+            if (!(ready = !ready)) {
+                return 0;
+            }
+            
+            int l = Math.min(max, src.remaining());
+            for (int i = 0; i < l; i++) {
+                out.write(src.get());
+            }
+            return l;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+        
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
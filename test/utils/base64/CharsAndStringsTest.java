@@ -0,0 +1,131 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class CharsAndStringsTest {
+    @Test
+    void encodeToStringRoundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String expected = expectedString(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    String encoded = Base64Convertor.encodeToString(data, convertor, layout[0], layout[1]);
+                    assertEquals(expected, encoded, description);
+                    assertArrayEquals(data, Base64Convertor.decode(encoded, convertor), description);
+                    assertArrayEquals(data, Base64Convertor.decode(encoded.toCharArray(), convertor), description);
+                }
+            }
+        }
+        
+        byte[] data = Base64Samples.random(100, 25);
+        assertEquals(
+            expectedString(data, Base64Convertor.Convertor.STANDARD, false, true), Base64Convertor.encodeToString(data)
+        );
+    }
+    
+    @Test
+    void encodeIntoChars() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String expected = expectedString(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Source & destination both offset, characters around the result must not be touched
+                    byte[] src = new byte[length + 1];
+                    System.arraycopy(data, 0, src, 1, length);
+                    char[] dst = new char[expected.length() + 4];
+                    Arrays.fill(dst, '#');
+                    
+                    int c = Base64Convertor.encode(src, 1, length, dst, 2, convertor, layout[0], layout[1]);
+                    
+                    assertEquals(expected.length(), c, description);
+                    assertEquals(expected, new String(dst, 2, c), description);
+                    assertEquals('#', dst[1], description);
+                    assertEquals('#', dst[2 + c], description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void appendToAppendable() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String expected = expectedString(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Appended after existing content, as a JSON serializer does
+                    StringBuilder builder = new StringBuilder("{\"data\":\"");
+                    assertSame(builder, Base64Convertor.encode(
+                        data, 0, length, builder, convertor, layout[0], layout[1]
+                    ));
+                    assertEquals("{\"data\":\"" + expected, builder.toString(), description);
+                    
+                    StringWriter writer = new StringWriter();
+                    Base64Convertor.encode(data, 0, length, writer, convertor, layout[0], layout[1]);
+                    assertEquals(expected, writer.toString(), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void charsBeyondLatin1AreUnmappable() {
+        byte[] data = Base64Samples.random(1000, 26);
+        String encoded = expectedString(data, Base64Convertor.Convertor.STANDARD, true, true);
+        
+        // Low byte of U+0141 is 'A', of U+012B is '+', neither may be taken for an encoded character
+        for (char c : new char[] {'\u0141', '\u012B', '\uFFFF'}) {
+            for (int i : new int[] {0, 1, 2, 3, 500, encoded.length() - 1}) {
+                String inserted = encoded.substring(0, i) + c + encoded.substring(i);
+                
+                assertArrayEquals(
+                    data, Base64Convertor.decode(inserted, Base64Convertor.Convertor.STANDARD), "offset " + i
+                );
+                assertArrayEquals(
+                    data, Base64Convertor.decode(inserted.toCharArray(), Base64Convertor.Convertor.STANDARD),
+                    "offset " + i
+                );
+            }
+        }
+    }
+    
+    @Test
+    void invalidRangeIsRejected() {
+        byte[] data = new byte[30];
+        int length = Base64Convertor.encodedLength(data.length, Base64Convertor.Convertor.STANDARD, false, true);
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, 0, data.length, new char[length - 1], 0, Base64Convertor.Convertor.STANDARD, false, true
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, 1, data.length, new char[length], 0, Base64Convertor.Convertor.STANDARD, false, true
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, -1, 3, new StringBuilder(), Base64Convertor.Convertor.STANDARD, false, true
+        ));
+    }
+    
+    private static String expectedString(
+        byte[] data, Base64Convertor.Convertor convertor, boolean chunked, boolean padding
+    ) {
+        return new String(Base64Samples.expected(data, convertor, chunked, padding), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,61 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class DecodeParallelTest {
+    @Test
+    void roundTrip() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+                for (boolean[] layout : Base64Samples.LAYOUTS) {
+                    for (int length : Base64Samples.LENGTHS) {
+                        byte[] data = Base64Samples.random(length, length);
+                        byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                        
+                        // Small threshold, so that segments split blocks & line breaks everywhere
+                        assertArrayEquals(
+                            data, Base64Convertor.decodeParallel(encoded, convertor, pool, 17),
+                            Base64Samples.describe(data, convertor, layout[0], layout[1])
+                        );
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    void irregularWhitespaceIsSkipped() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            byte[] data = Base64Samples.random(5000, 8);
+            String encoded = new String(Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, false, true));
+            
+            // Line breaks of varying length at varying intervals
+            StringBuilder noisy = new StringBuilder();
+            for (int i = 0, line = 1; i < encoded.length(); i += line, line = line % 97 + 1) {
+                noisy.append(encoded, i, Math.min(encoded.length(), i + line)).append((line % 2 == 0)? "\r\n" : "\n");
+            }
+            
+            assertArrayEquals(data, Base64Convertor.decodeParallel(
+                noisy.toString().getBytes(), Base64Convertor.Convertor.STANDARD, pool, 50
+            ));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    void commonPoolRoundTrip() {
+        byte[] data = Base64Samples.random(Base64Convertor.DEFAULT_PARALLEL_THRESHOLD + 7, 9);
+        byte[] encoded = Base64Samples.expected(data, Base64Convertor.Convertor.ORDERED, true, false);
+        
+        assertArrayEquals(data, Base64Convertor.decodeParallel(encoded, Base64Convertor.Convertor.ORDERED));
+    }
+}
@@ -0,0 +1,121 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class DecodeStrictTest {
+    @Test
+    void roundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean padding : new boolean[] {false, true}) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, false, padding);
+                    String description = Base64Samples.describe(data, convertor, false, padding);
+                    
+                    assertArrayEquals(data, Base64Convertor.decodeStrict(encoded, convertor), description);
+                    assertArrayEquals(
+                        data, Base64Convertor.decodeStrict(new String(encoded, StandardCharsets.ISO_8859_1), convertor),
+                        description
+                    );
+                    
+                    // Range within invalid bytes
+                    byte[] bytes = new byte[encoded.length + 3];
+                    bytes[0] = bytes[encoded.length + 1] = bytes[encoded.length + 2] = '\n';
+                    System.arraycopy(encoded, 0, bytes, 1, encoded.length);
+                    assertArrayEquals(
+                        data, Base64Convertor.decodeStrict(bytes, 1, encoded.length, convertor), description
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void chunkedDataIsRejected() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            if (convertor == Base64Convertor.Convertor.URL_SAFE) {
+                // Never chunked
+                continue;
+            }
+            
+            for (boolean padding : new boolean[] {false, true}) {
+                byte[] data = Base64Samples.random(1000, 22);
+                byte[] encoded = Base64Samples.expected(data, convertor, true, padding);
+                
+                Base64FormatException e = assertThrows(
+                    Base64FormatException.class, () -> Base64Convertor.decodeStrict(encoded, convertor)
+                );
+                String description = Base64Samples.describe(data, convertor, true, padding);
+                assertEquals(Base64Convertor.CHUNK_SIZE, e.getOffset(), description);
+                
+                // Lenient decoding still accepts it
+                assertArrayEquals(data, Base64Convertor.decode(encoded, convertor), description);
+            }
+        }
+    }
+    
+    @Test
+    void invalidCharacterOffsetIsReported() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            byte[] encoded = Base64Samples.expected(Base64Samples.random(3000, 23), convertor, false, true);
+            
+            // Inside the bulk decoded blocks & the tail validated afterward
+            for (int i : new int[] {0, 1, 2, 3, 4, 5, 63, 64, 65, 1000, encoded.length - 5, encoded.length - 4}) {
+                byte[] bytes = encoded.clone();
+                bytes[i] = '!';
+                
+                Base64FormatException e = assertThrows(
+                    Base64FormatException.class, () -> Base64Convertor.decodeStrict(bytes, convertor)
+                );
+                assertEquals(i, e.getOffset(), convertor + " offset " + i);
+                assertEquals(i, convertor.findInvalid(bytes, 0, bytes.length), convertor + " offset " + i);
+                
+                String string = new String(encoded, StandardCharsets.ISO_8859_1);
+                e = assertThrows(Base64FormatException.class, () -> Base64Convertor.decodeStrict(
+                    string.substring(0, i) + '\u0141' + string.substring(i + 1), convertor
+                ));
+                assertEquals(i, e.getOffset(), convertor + " offset " + i);
+            }
+        }
+    }
+    
+    @Test
+    void paddingIsEnforced() {
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        // Payload & offset reported, payload length for payloads ending early
+        Object[][] cases = {
+            {"A", 1}, {"AAAAA", 5}, {"AA=", 3}, {"A===", 1}, {"=", 0}, {"AAAA=", 4},
+            {"AA===", 4}, {"AAA==", 4}, {"AA=A", 3}, {"AA==AAAA", 4}, {"AAAA\r\nAAAA", 4}
+        };
+        
+        for (Object[] c : cases) {
+            String payload = (String)c[0];
+            Base64FormatException e = assertThrows(
+                Base64FormatException.class, () -> Base64Convertor.decodeStrict(payload, standard), payload
+            );
+            assertEquals((int)(Integer)c[1], e.getOffset(), payload);
+        }
+        
+        assertArrayEquals(new byte[0], Base64Convertor.decodeStrict("", standard));
+        assertArrayEquals(new byte[] {0}, Base64Convertor.decodeStrict("AA==", standard));
+        assertArrayEquals(new byte[] {0}, Base64Convertor.decodeStrict("AA", standard));
+        assertArrayEquals(new byte[] {0, 0}, Base64Convertor.decodeStrict("AAA=", standard));
+    }
+    
+    @Test
+    void invalidRangeIsRejected() {
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.decodeStrict(
+            new byte[4], 1, 4, Base64Convertor.Convertor.STANDARD
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.decodeStrict(
+            new byte[4], -1, 2, Base64Convertor.Convertor.STANDARD
+        ));
+    }
+}
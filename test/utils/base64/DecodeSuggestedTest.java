@@ -0,0 +1,92 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DecodeSuggestedTest {
+    @Test
+    void roundTrip() {
+        for (Base64Convertor.Convertor convertor : new Base64Convertor.Convertor[] {
+            Base64Convertor.Convertor.STANDARD, Base64Convertor.Convertor.URL_SAFE
+        }) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String encoded = new String(
+                        Base64Samples.expected(data, convertor, layout[0], layout[1]), StandardCharsets.ISO_8859_1
+                    );
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    assertArrayEquals(data, Base64Convertor.decode(encoded), description);
+                    assertSameAsSuggested(encoded, description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void distinguishableCharacterAtEveryPosition() {
+        // Encoded zeros are 'A's only, a single distinguishable character anywhere decides the convertor
+        String zeros = new String(
+            Base64Samples.expected(new byte[300], Base64Convertor.Convertor.STANDARD, true, true),
+            StandardCharsets.ISO_8859_1
+        );
+        
+        for (int i = 0; i < zeros.length(); i++) {
+            if (zeros.charAt(i) != 'A') {
+                continue;
+            }
+            
+            for (char c : new char[] {'+', '/', '-', '_'}) {
+                String encoded = zeros.substring(0, i) + c + zeros.substring(i + 1);
+                assertSameAsSuggested(encoded, "position " + i + " char " + c);
+                
+                // The other alphabet's characters after it are unmappable
+                String mixed = encoded.substring(0, i + 1) + "+-/_" + encoded.substring(i + 1);
+                assertSameAsSuggested(mixed, "mixed position " + i + " char " + c);
+            }
+        }
+    }
+    
+    @Test
+    void randomMixedInput() {
+        String alphabets = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/-_=\r\n \u0141";
+        Random random = new Random(24);
+        
+        int shared = 62;
+        
+        for (int t = 0; t < 2000; t++) {
+            char[] chars = new char[random.nextInt(300)];
+            for (int i = 0; i < chars.length; i++) {
+                // Mostly characters shared by both alphabets, so that the decision falls anywhere
+                int c = (random.nextInt(20) == 0)?
+                    shared + random.nextInt(alphabets.length() - shared) : random.nextInt(shared);
+                chars[i] = alphabets.charAt(c);
+            }
+            assertSameAsSuggested(new String(chars), "case " + t);
+        }
+    }
+    
+    @Test
+    void firstDistinguishableCharacterSuggests() {
+        assertEquals(Base64Convertor.Convertor.STANDARD, Base64Convertor.suggestConvertor("AAAA"));
+        assertEquals(Base64Convertor.Convertor.STANDARD, Base64Convertor.suggestConvertor(""));
+        assertEquals(Base64Convertor.Convertor.STANDARD, Base64Convertor.suggestConvertor("AA/-"));
+        assertEquals(Base64Convertor.Convertor.URL_SAFE, Base64Convertor.suggestConvertor("AA_+"));
+        assertArrayEquals(new byte[0], Base64Convertor.decode(""));
+    }
+    
+    private static void assertSameAsSuggested(String encoded, String description) {
+        Base64Convertor.Convertor suggested = Base64Convertor.suggestConvertor(encoded);
+        
+        assertArrayEquals(
+            Base64Convertor.decode(encoded.getBytes(StandardCharsets.ISO_8859_1), suggested),
+            Base64Convertor.decode(encoded), description + " " + suggested
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class DestinationArrayTest {
+    @Test
+    void encodeIntoDestination() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Source & destination both offset, bytes around the result must not be touched
+                    byte[] src = new byte[length + 2];
+                    System.arraycopy(data, 0, src, 2, length);
+                    byte[] dst = new byte[expected.length + 5];
+                    Arrays.fill(dst, (byte)'#');
+                    
+                    int c = Base64Convertor.encode(src, 2, length, dst, 3, convertor, layout[0], layout[1]);
+                    
+                    assertEquals(expected.length, c, description);
+                    assertArrayEquals(expected, Arrays.copyOfRange(dst, 3, 3 + c), description);
+                    assertEquals('#', dst[2], description);
+                    assertEquals('#', dst[3 + c], description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void decodeIntoDestination() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    byte[] src = new byte[encoded.length + 1];
+                    System.arraycopy(encoded, 0, src, 1, encoded.length);
+                    byte[] dst = new byte[Base64Convertor.maxDecodedLength(encoded.length) + 1];
+                    
+                    int c = Base64Convertor.decode(src, 1, encoded.length, dst, 1, convertor);
+                    
+                    assertEquals(length, c, description);
+                    assertArrayEquals(data, Arrays.copyOfRange(dst, 1, 1 + c), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void defaultsAreStandardPadded() {
+        byte[] data = Base64Samples.random(100, 3);
+        byte[] expected = Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, false, true);
+        
+        byte[] encoded = new byte[expected.length];
+        assertEquals(expected.length, Base64Convertor.encode(data, 0, data.length, encoded, 0));
+        assertArrayEquals(expected, encoded);
+        
+        byte[] decoded = new byte[data.length];
+        assertEquals(data.length, Base64Convertor.decode(encoded, 0, encoded.length, decoded, 0));
+        assertArrayEquals(data, decoded);
+    }
+    
+    @Test
+    void smallDestinationIsRejected() {
+        byte[] data = Base64Samples.random(30, 4);
+        byte[] encoded = Base64Convertor.encode(data);
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, 0, data.length, new byte[encoded.length - 1], 0
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.decode(
+            encoded, 0, encoded.length, new byte[data.length - 1], 0
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.decode(
+            encoded, 0, encoded.length + 1, new byte[data.length], 0
+        ));
+    }
+}
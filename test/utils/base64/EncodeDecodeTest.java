@@ -0,0 +1,99 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class EncodeDecodeTest {
+    @Test
+    void identicalToExpectedEncoding() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    assertArrayEquals(
+                        expected, Base64Convertor.encode(data, convertor, layout[0], layout[1]), description
+                    );
+                    assertEquals(
+                        expected.length, Base64Convertor.encodedLength(length, convertor, layout[0], layout[1]),
+                        description
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void rangeIdenticalToExpectedEncoding() {
+        byte[] data = Base64Samples.random(1000, 1);
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int offset : new int[] {0, 1, 2, 500}) {
+                    byte[] range = Arrays.copyOfRange(data, offset, offset + 400);
+                    
+                    assertArrayEquals(
+                        Base64Samples.expected(range, convertor, layout[0], layout[1]),
+                        Base64Convertor.encode(data, convertor, offset, 400, layout[0], layout[1]),
+                        Base64Samples.describe(range, convertor, layout[0], layout[1]) + " offset " + offset
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void roundTrip() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    
+                    assertArrayEquals(
+                        data, Base64Convertor.decode(encoded, convertor),
+                        Base64Samples.describe(data, convertor, layout[0], layout[1])
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void irregularLineBreaksAreIgnored() {
+        byte[] data = Base64Samples.random(1000, 2);
+        String encoded = new String(Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, false, true));
+        
+        // PEM style lines of 64 characters, then blank lines after every line of 76 characters
+        StringBuilder pem = new StringBuilder(), blank = new StringBuilder();
+        for (int i = 0; i < encoded.length(); i += 64) {
+            pem.append(encoded, i, Math.min(encoded.length(), i + 64)).append('\n');
+        }
+        for (int i = 0; i < encoded.length(); i += 76) {
+            blank.append(encoded, i, Math.min(encoded.length(), i + 76)).append("\r\n\r\n");
+        }
+        
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        assertArrayEquals(data, Base64Convertor.decode(pem.toString().getBytes(), standard));
+        assertArrayEquals(data, Base64Convertor.decode(blank.toString().getBytes(), standard));
+    }
+    
+    @Test
+    void invalidRangeIsRejected() {
+        byte[] data = new byte[10];
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, Base64Convertor.Convertor.STANDARD, 8, 3, false, true
+        ));
+        assertThrows(IndexOutOfBoundsException.class, () -> Base64Convertor.encode(
+            data, Base64Convertor.Convertor.STANDARD, -1, 3, false, true
+        ));
+    }
+}
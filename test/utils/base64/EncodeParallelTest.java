@@ -0,0 +1,60 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class EncodeParallelTest {
+    @Test
+    void identicalToExpectedEncoding() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+                for (boolean[] layout : Base64Samples.LAYOUTS) {
+                    for (int length : Base64Samples.LENGTHS) {
+                        byte[] data = Base64Samples.random(length, length);
+                        
+                        // Small threshold, so that even short input is split into many slices
+                        assertArrayEquals(
+                            Base64Samples.expected(data, convertor, layout[0], layout[1]),
+                            Base64Convertor.encodeParallel(data, convertor, layout[0], layout[1], pool, 100),
+                            Base64Samples.describe(data, convertor, layout[0], layout[1])
+                        );
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    void commonPoolRoundTrip() {
+        byte[] data = Base64Samples.random(Base64Convertor.DEFAULT_PARALLEL_THRESHOLD * 2 + 1, 6);
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        for (boolean[] layout : Base64Samples.LAYOUTS) {
+            byte[] encoded = Base64Convertor.encodeParallel(data, standard, layout[0], layout[1]);
+            
+            assertArrayEquals(Base64Samples.expected(data, standard, layout[0], layout[1]), encoded);
+            assertArrayEquals(data, Base64Convertor.decode(encoded, standard));
+        }
+    }
+    
+    @Test
+    void singleThreadPoolEncodesSequentially() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            byte[] data = Base64Samples.random(10_000, 7);
+            
+            assertArrayEquals(
+                Base64Samples.expected(data, Base64Convertor.Convertor.URL_SAFE, true, true),
+                Base64Convertor.encodeParallel(data, Base64Convertor.Convertor.URL_SAFE, true, true, pool, 10)
+            );
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class EncodePipelinedTest {
+    /**
+     * Bytes of a pipeline block
+     */
+    private static final int BLOCK_SIZE = 57 * (1 << 14);
+    
+    @Test
+    void identicalToExpectedEncoding() throws IOException {
+        int[] lengths = {0, 1, 57, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE * 3 + 2};
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : lengths) {
+                    byte[] data = Base64Samples.random(length, length);
+                    
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Base64Convertor.encodePipelined(
+                        new ByteArrayInputStream(data), out, convertor, layout[0], layout[1], false, 3
+                    );
+                    
+                    assertArrayEquals(
+                        Base64Samples.expected(data, convertor, layout[0], layout[1]), out.toByteArray(),
+                        Base64Samples.describe(data, convertor, layout[0], layout[1])
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void roundTrip() throws IOException {
+        byte[] data = Base64Samples.random(BLOCK_SIZE * 2 + 5, 7);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Base64Convertor.encodePipelined(
+            new ByteArrayInputStream(data), out, Base64Convertor.Convertor.STANDARD, true, true, false, 2
+        );
+        
+        assertArrayEquals(data, Base64Convertor.decode(out.toByteArray(), Base64Convertor.Convertor.STANDARD));
+    }
+    
+    @Test
+    void uncheckedSourceFailureIsPropagated() {
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> Base64Convertor.encodePipelined(
+            new FailingInputStream(3, new UncheckedIOException(new IOException("Source failed!"))),
+            OutputStream.nullOutputStream(), Base64Convertor.Convertor.STANDARD, true, true, false, 3
+        ));
+        
+        assertEquals("Source failed!", e.getCause().getMessage());
+        assertNoPipelineThread();
+    }
+    
+    @Test
+    void checkedSourceFailureIsPropagated() {
+        IOException e = assertThrows(IOException.class, () -> Base64Convertor.encodePipelined(
+            new FailingInputStream(3, null),
+            OutputStream.nullOutputStream(), Base64Convertor.Convertor.STANDARD, true, true, false, 3
+        ));
+        
+        assertEquals("Source failed!", e.getMessage());
+        assertNoPipelineThread();
+    }
+    
+    @Test
+    void uncheckedSinkFailureIsPropagated() {
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("Sink failed!");
+            }
+            
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                throw new IllegalStateException("Sink failed!");
+            }
+        };
+        
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> Base64Convertor.encodePipelined(
+            new ByteArrayInputStream(new byte[BLOCK_SIZE * 20]), sink,
+            Base64Convertor.Convertor.STANDARD, true, true, false, 2
+        ));
+        
+        assertEquals("Sink failed!", e.getMessage());
+        assertNoPipelineThread();
+    }
+    
+    private static void assertNoPipelineThread() {
+        boolean alive = true;
+        for (int i = 0; i < 100 && alive; i++) {
+            alive = Thread.getAllStackTraces().keySet().stream()
+                    .anyMatch(t -> t.getName().equals("base64-pipeline-reader"));
+            if (alive) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        assertFalse(alive, "Pipeline reader thread left running");
+    }
+    
+    /**
+     * Input stream of zero bytes failing after the provided number of reads
+     */
+    private static class FailingInputStream extends InputStream {
+        private final RuntimeException unchecked;
+        private int reads;
+        
+        FailingInputStream(int reads, RuntimeException unchecked) {
+            this.reads = reads;
+            this.unchecked = unchecked;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] bytes = new byte[1];
+            return (read(bytes, 0, 1) < 0)? -1 : bytes[0];
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (reads-- == 0) {
+                if (unchecked != null) {
+                    throw unchecked;
+                }
+                throw new IOException("Source failed!");
+            }
+            Arrays.fill(bytes, offset, offset + length, (byte)0);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FileToFileTest {
+    private Path input, encoded, decoded;
+    
+    @BeforeEach
+    void createFiles() throws IOException {
+        input = Files.createTempFile("base64", ".bin");
+        encoded = Files.createTempFile("base64", ".b64");
+        decoded = Files.createTempFile("base64", ".out");
+    }
+    
+    @AfterEach
+    void deleteFiles() throws IOException {
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(encoded);
+        Files.deleteIfExists(decoded);
+    }
+    
+    @Test
+    void roundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    Files.write(input, data);
+                    
+                    Base64Convertor.encodeFileToFile(input.toFile(), encoded.toFile(), convertor, layout[0], layout[1]);
+                    assertArrayEquals(
+                        Base64Samples.expected(data, convertor, layout[0], layout[1]), Files.readAllBytes(encoded),
+                        description
+                    );
+                    
+                    Base64Convertor.decodeFileToFile(encoded.toFile(), decoded.toFile(), convertor);
+                    assertArrayEquals(data, Files.readAllBytes(decoded), description);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void existingOutputIsTruncated() throws IOException {
+        byte[] data = Base64Samples.random(100, 5);
+        Files.write(input, data);
+        Files.write(encoded, new byte[10_000]);
+        Files.write(decoded, new byte[10_000]);
+        
+        Base64Convertor.encodeFileToFile(
+            input.toString(), encoded.toString(), Base64Convertor.Convertor.STANDARD, true, true
+        );
+        Base64Convertor.decodeFileToFile(encoded.toString(), decoded.toString(), Base64Convertor.Convertor.STANDARD);
+        
+        assertArrayEquals(
+            Base64Samples.expected(data, Base64Convertor.Convertor.STANDARD, true, true), Files.readAllBytes(encoded)
+        );
+        assertArrayEquals(data, Files.readAllBytes(decoded));
+    }
+}
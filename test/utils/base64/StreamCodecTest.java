@@ -0,0 +1,74 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class StreamCodecTest {
+    @Test
+    void encodeIdenticalToExpectedEncoding() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    
+                    // Short reads must not change block & line layout
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Base64Convertor.encode(Base64Samples.trickle(data, 7), out, convertor, layout[0], layout[1], false);
+                    
+                    assertArrayEquals(
+                        Base64Samples.expected(data, convertor, layout[0], layout[1]), out.toByteArray(),
+                        Base64Samples.describe(data, convertor, layout[0], layout[1])
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void roundTrip() throws IOException {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Base64Convertor.decode(Base64Samples.trickle(encoded, 5), out, convertor, false);
+                    
+                    assertArrayEquals(data, out.toByteArray(), description);
+                    assertArrayEquals(
+                        data, Base64Convertor.decode(new ByteArrayInputStream(encoded), convertor, false), description
+                    );
+                }
+            }
+        }
+    }
+    
+    @Test
+    void streamsAreClosedOnRequest() throws IOException {
+        boolean[] closed = new boolean[2];
+        ByteArrayInputStream in = new ByteArrayInputStream(new byte[10]) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[1] = true;
+            }
+        };
+        
+        Base64Convertor.encode(in, out, Base64Convertor.Convertor.STANDARD, false, true, true);
+        
+        assertTrue(closed[0] && closed[1]);
+    }
+}
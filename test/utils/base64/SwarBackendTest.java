@@ -0,0 +1,87 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class SwarBackendTest {
+    /**
+     * Lengths of complete blocks, around the word sizes of the kernels
+     */
+    private static final int[] BLOCKS = {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 31, 32, 33, 64, 100, 1000, 33_335};
+    
+    @Test
+    void identicalToExpectedEncoding() {
+        assertKernels(backend("swar"));
+    }
+    
+    @Test
+    void allConvertorsSupported() {
+        Base64Backend backend = backend("swar");
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            assertTrue(backend.supports(convertor), convertor.toString());
+        }
+    }
+    
+    /**
+     * @param name backend name
+     * @return registered backend
+     */
+    static Base64Backend backend(String name) {
+        Base64Backend backend = Base64Backends.getBackends().stream()
+                .filter(b -> b.name().equals(name)).findFirst().orElse(null);
+        assertNotNull(backend, name + " backend not registered");
+        return backend;
+    }
+    
+    /**
+     * Check encoding & decoding of complete blocks of every supported convertor against expected encoding,
+     * from & to offset positions, blocks left by the backend are finished by the scalar code
+     * 
+     * @param backend backend to be checked
+     */
+    static void assertKernels(Base64Backend backend) {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            if (!backend.supports(convertor)) {
+                continue;
+            }
+            
+            for (int blocks : BLOCKS) {
+                byte[] data = Base64Samples.random(blocks * 3, blocks);
+                byte[] encoded = Base64Samples.expected(data, convertor, false, false);
+                String description = backend.name() + " " + Base64Samples.describe(data, convertor, false, false);
+                
+                byte[] src = new byte[data.length + 1];
+                System.arraycopy(data, 0, src, 1, data.length);
+                byte[] dest = new byte[encoded.length + 1];
+                
+                int di = Base64Convertor.encodeGroups(src, 1, src.length, dest, 1, convertor, backend);
+                assertEquals(dest.length, di, description);
+                assertArrayEquals(encoded, Arrays.copyOfRange(dest, 1, di), description);
+                
+                src = new byte[encoded.length + 1];
+                System.arraycopy(encoded, 0, src, 1, encoded.length);
+                dest = new byte[data.length + 1];
+                
+                int si = Base64Convertor.decodeGroups(src, 1, src.length, dest, 1, convertor, backend);
+                assertEquals(src.length, si, description);
+                assertArrayEquals(data, Arrays.copyOfRange(dest, 1, dest.length), description);
+                
+                // Decoding stops before the first block containing an unmappable byte
+                if (blocks > 0) {
+                    int invalid = 1 + encoded.length / 2;
+                    src[invalid] = '\n';
+                    
+                    si = backend.decode(src, 1, src.length, dest, 1, convertor);
+                    assertEquals(0, (si - 1) % 4, description);
+                    assertTrue(si <= 1 + (invalid - 1) / 4 * 4, description);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ValidationTest {
+    @Test
+    void membershipMatchesAlphabets() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            boolean[] alphabet = new boolean[256];
+            for (int i = 0; i < 64; i++) {
+                alphabet[convertor.encode(i) & 0xFF] = true;
+            }
+            
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                boolean expected = c < 256 && alphabet[c];
+                assertEquals(expected, convertor.isEncodedChar((char)c), convertor + " char " + c);
+                if (c < 256) {
+                    assertEquals(expected, convertor.isEncodedByte((byte)c), convertor + " byte " + c);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void encodedPayloadsAreValid() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] encoded = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    // Surrounded by invalid bytes, only the given range is checked
+                    byte[] bytes = new byte[encoded.length + 4];
+                    bytes[0] = bytes[1] = bytes[bytes.length - 2] = bytes[bytes.length - 1] = '!';
+                    System.arraycopy(encoded, 0, bytes, 2, encoded.length);
+                    String chars = new String(bytes, StandardCharsets.ISO_8859_1);
+                    
+                    // Line breaks are invalid, the first one is at the end of the first line
+                    int expected = (encoded.length > Base64Convertor.CHUNK_SIZE && layout[0]
+                            && convertor != Base64Convertor.Convertor.URL_SAFE)? 2 + Base64Convertor.CHUNK_SIZE : -1;
+                    
+                    assertEquals(expected, convertor.findInvalid(bytes, 2, encoded.length), description);
+                    assertEquals(expected, convertor.findInvalid(chars, 2, encoded.length), description);
+                    assertEquals(expected < 0, convertor.isValid(bytes, 2, encoded.length), description);
+                    assertEquals(expected < 0, convertor.isValid(chars, 2, encoded.length), description);
+                    
+                    if (expected < 0) {
+                        assertArrayEquals(data, Base64Convertor.decode(encoded, convertor), description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void invalidCharacterOffsetIsFound() {
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            byte[] encoded = Base64Samples.expected(Base64Samples.random(1000, 21), convertor, false, true);
+            
+            // Every offset of the word-at-a-time checks, the padded tail excluded
+            for (int i = 0; i < 100; i++) {
+                for (char c : new char[] {'!', '\n', '\u00E9', '\u0141'}) {
+                    char[] chars = new String(encoded, StandardCharsets.ISO_8859_1).toCharArray();
+                    chars[i] = c;
+                    String string = new String(chars);
+                    String description = convertor + " offset " + i + " char " + (int)c;
+                    
+                    assertEquals(i, convertor.findInvalid(string, 0, string.length()), description);
+                    assertFalse(convertor.isValid(string, 0, string.length()), description);
+                    
+                    if (c < 256) {
+                        byte[] bytes = encoded.clone();
+                        bytes[i] = (byte)c;
+                        assertEquals(i, convertor.findInvalid(bytes, 0, bytes.length), description);
+                        assertFalse(convertor.isValid(bytes, 0, bytes.length), description);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void paddingPlacementIsChecked() {
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        // Payload & the expected offset, payload length for payloads ending early, -1 for valid payloads
+        Object[][] cases = {
+            {"", -1}, {"AA", -1}, {"AAA", -1}, {"AAAA", -1}, {"AA==", -1}, {"AAA=", -1}, {"AAAAAA==", -1},
+            {"A", 1}, {"AAAAA", 5}, {"AA=", 3}, {"A===", 1}, {"=", 0}, {"AAAA=", 4}, {"AAAA====", 4},
+            {"AA===", 4}, {"AAA==", 4}, {"AA=A", 3}, {"AA==AAAA", 4}, {"AAA=AAAA", 4}, {"AAAA AAAA", 4}
+        };
+        
+        for (Object[] c : cases) {
+            String payload = (String)c[0];
+            int expected = (Integer)c[1];
+            byte[] bytes = payload.getBytes(StandardCharsets.ISO_8859_1);
+            
+            assertEquals(expected, standard.findInvalid(payload, 0, payload.length()), payload);
+            assertEquals(expected, standard.findInvalid(bytes, 0, bytes.length), payload);
+            assertEquals(expected < 0, standard.isValid(payload, 0, payload.length()), payload);
+            assertEquals(expected < 0, standard.isValid(bytes, 0, bytes.length), payload);
+        }
+    }
+    
+    @Test
+    void alphabetsAreNotShared() {
+        String standard = "ab+/", urlSafe = "ab-_";
+        
+        assertTrue(Base64Convertor.Convertor.STANDARD.isValid(standard, 0, 4));
+        assertEquals(2, Base64Convertor.Convertor.STANDARD.findInvalid(urlSafe, 0, 4));
+        assertTrue(Base64Convertor.Convertor.URL_SAFE.isValid(urlSafe, 0, 4));
+        assertEquals(2, Base64Convertor.Convertor.URL_SAFE.findInvalid(standard, 0, 4));
+    }
+    
+    @Test
+    void invalidRangeIsRejected() {
+        Base64Convertor.Convertor standard = Base64Convertor.Convertor.STANDARD;
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> standard.findInvalid(new byte[4], 1, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> standard.findInvalid(new byte[4], -1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> standard.findInvalid("AAAA", 0, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> standard.isValid("AAAA", 2, -1));
+    }
+}
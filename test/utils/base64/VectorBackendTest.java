@@ -0,0 +1,47 @@
+package utils.base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VectorBackendTest {
+    @Test
+    void identicalToExpectedEncoding() {
+        assumeVectorBackend();
+        
+        SwarBackendTest.assertKernels(SwarBackendTest.backend("vector"));
+    }
+    
+    @Test
+    void roundTripWhenActive() {
+        assumeVectorBackend();
+        
+        for (Base64Convertor.Convertor convertor : Base64Convertor.Convertor.values()) {
+            assumeTrue(Base64Backends.getBackend(convertor).name().equals("vector"), "Vector backend not active");
+            
+            for (boolean[] layout : Base64Samples.LAYOUTS) {
+                for (int length : Base64Samples.LENGTHS) {
+                    byte[] data = Base64Samples.random(length, length);
+                    byte[] expected = Base64Samples.expected(data, convertor, layout[0], layout[1]);
+                    String description = Base64Samples.describe(data, convertor, layout[0], layout[1]);
+                    
+                    assertArrayEquals(
+                        expected, Base64Convertor.encode(data, convertor, layout[0], layout[1]), description
+                    );
+                    assertArrayEquals(data, Base64Convertor.decode(expected, convertor), description);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Vector backend is only registered with jdk.incubator.vector module & vectors of 128 bits at least
+     */
+    private static void assumeVectorBackend() {
+        assumeTrue(
+            Base64Backends.getBackends().stream().anyMatch(b -> b.name().equals("vector")),
+            "Vector backend not available on this platform"
+        );
+    }
+}
@@ -0,0 +1,242 @@
+package utils.base64;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD backend built on jdk.incubator.vector<br><br>
+ * 
+ * Alphabet mapping is done with vector shuffles (table lookups) for every convertor.
+ * This class is built apart from the core classes (vector source set) & loaded reflectively by Base64Backends
+ * only when the module is resolved (--add-modules jdk.incubator.vector), it is left out of the registered backends otherwise.
+ */
+final class VectorBackend implements Base64Backend {
+    /**
+     * Byte species used, preferred shape of the running CPU
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    
+    /**
+     * Number of byte lanes
+     */
+    private static final int LANES = SPECIES.length();
+    
+    /**
+     * Binary bytes per vector (LANES characters)
+     */
+    private static final int BINARY_LANES = LANES / 4 * 3;
+    
+    /**
+     * Half & quarter shapes, storing the binary bytes of a vector exactly (LANES / 2 + LANES / 4).
+     * A quarter of a 128bit vector is no vector shape, its 4 bytes are stored as an int instead (quarter shape null).
+     */
+    private static final VectorSpecies<Byte> HALF_SPECIES    = VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 2));
+    private static final VectorSpecies<Byte> QUARTER_SPECIES = (LANES >= 32)?
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.vectorBitSize() / 4)) : null;
+    
+    /**
+     * Int view of byte arrays in lane order
+     */
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    
+    /**
+     * Spread every 3 bytes into a 4 bytes lane as little endian int (b2, b1, b0, b0)
+     */
+    private static final VectorShuffle<Byte> SPREAD = VectorShuffle.fromOp(
+        SPECIES, i -> i / 4 * 3 + ((i % 4 == 3)? 0 : 2 - i % 4)
+    );
+    
+    /**
+     * Pack 3 significant bytes of every 4 bytes lane (b2, b1, b0, 0) to (b0, b1, b2)
+     */
+    private static final VectorShuffle<Byte> PACK = VectorShuffle.fromOp(
+        SPECIES, i -> (i < BINARY_LANES)? i / 3 * 4 + 2 - i % 3 : 0
+    );
+    
+    /**
+     * Backend processing the blocks left by vectors
+     */
+    private final Base64Backend tail = new SwarBackend();
+    
+    /**
+     * Check whether the running platform provides vectors wide enough for this backend
+     * 
+     * @return check result
+     */
+    static boolean isSupported() {
+        // Half of a vector must still be a vector shape (64bit at least)
+        return LANES >= 16;
+    }
+    
+    /**
+     * Encoding & decoding tables of every convertor, split into vectors (indexed by convertor ordinal)<br>
+     * Built on first use, convertors may not yet be initialized when this backend is created.
+     */
+    private static class Tables {
+        private static final ByteVector[][] ENCODE, DECODE;
+        
+        static {
+            Base64Convertor.Convertor[] convertors = Base64Convertor.Convertor.values();
+            
+            ENCODE = new ByteVector[convertors.length][];
+            DECODE = new ByteVector[convertors.length][];
+            
+            for (Base64Convertor.Convertor convertor : convertors) {
+                byte[] alphabets = new byte[Math.max(64, LANES)];
+                byte[] decodabets = new byte[Math.max(128, LANES)];
+                
+                // Unmappable character decodes to negative value
+                Arrays.fill(decodabets, (byte)-1);
+                
+                for (int i = 0; i < 64; i++) {
+                    alphabets[i] = convertor.encode(i);
+                    decodabets[alphabets[i]] = (byte)i;
+                }
+                
+                ENCODE[convertor.ordinal()] = toVectors(alphabets, 64);
+                DECODE[convertor.ordinal()] = toVectors(decodabets, 128);
+            }
+        }
+    }
+    
+    /**
+     * Split a table into vectors
+     * 
+     * @param table table bytes, at least LANES long
+     * @param length number of significant entries
+     * @return table vectors
+     */
+    private static ByteVector[] toVectors(byte[] table, int length) {
+        ByteVector[] vectors = new ByteVector[Math.max(1, length / LANES)];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = ByteVector.fromArray(SPECIES, table, i * LANES);
+        }
+        return vectors;
+    }
+    
+    /**
+     * Lookup table entries for every lane
+     * 
+     * @param table table vectors
+     * @param index table index of every lane (non-negative)
+     * @return table entries, undefined for negative index
+     */
+    private static ByteVector lookup(ByteVector[] table, ByteVector index) {
+        VectorShuffle<Byte> shuffle = index.and((byte)(LANES - 1)).toShuffle();
+        
+        ByteVector result = table[0].rearrange(shuffle);
+        for (int i = 1; i < table.length; i++) {
+            result = result.blend(table[i].rearrange(shuffle), index.compare(VectorOperators.GE, (byte)(i * LANES)));
+        }
+        return result;
+    }
+    
+    @Override
+    public String name() {
+        return "vector";
+    }
+    
+    @Override
+    public boolean supports(Base64Convertor.Convertor convertor) {
+        return true;
+    }
+    
+    /**
+     * Encode complete blocks of 3 bytes, a vector at a time, remaining blocks word-at-a-time
+     */
+    @Override
+    public int encode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        ByteVector[] table = Tables.ENCODE[convertor.ordinal()];
+        
+        int si = soffset, di = doffset;
+        for (int vend = send - LANES; si <= vend; si += BINARY_LANES, di += LANES) {
+            IntVector bits = ByteVector.fromArray(SPECIES, src, si).rearrange(SPREAD).reinterpretAsInts();
+            
+            // 4 6bit values of each block, one per byte
+            IntVector index = bits.lanewise(VectorOperators.LSHR, 18).and(0x3F)
+                    .or(bits.lanewise(VectorOperators.LSHR, 4).and(0x3F00))
+                    .or(bits.lanewise(VectorOperators.LSHL, 10).and(0x3F0000))
+                    .or(bits.lanewise(VectorOperators.LSHL, 24).and(0x3F000000));
+            
+            lookup(table, index.reinterpretAsBytes()).intoArray(dest, di);
+        }
+        return tail.encode(src, si, send, dest, di, convertor);
+    }
+    
+    /**
+     * Decode complete blocks of 4 characters, a vector at a time,
+     * vectors from the one containing any unmappable byte are decoded word-at-a-time.
+     */
+    @Override
+    public int decode(byte[] src, int soffset, int send, byte[] dest, int doffset, Base64Convertor.Convertor convertor) {
+        ByteVector[] table = Tables.DECODE[convertor.ordinal()];
+        
+        int si = soffset, di = doffset;
+        for (int vend = send - LANES; si <= vend; si += LANES, di += BINARY_LANES) {
+            ByteVector chars = ByteVector.fromArray(SPECIES, src, si);
+            ByteVector values = lookup(table, chars);
+            
+            if (isUnmappable(chars, values)) {
+                break;
+            }
+            store(pack(values), dest, di);
+        }
+        return tail.decode(src, si, send, dest, di, convertor);
+    }
+    
+    /**
+     * Check whether any lane is unmappable
+     * 
+     * @param chars characters
+     * @param values looked up values
+     * @return check result
+     */
+    private static boolean isUnmappable(ByteVector chars, ByteVector values) {
+        // Non-ASCII characters are negative as well as unmappable values
+        return chars.or(values).compare(VectorOperators.LT, (byte)0).anyTrue();
+    }
+    
+    /**
+     * Pack 6bit values of every 4 lanes to 3 bytes
+     * 
+     * @param values 6bit values
+     * @return packed bytes, only the first BINARY_LANES lanes are significant
+     */
+    private static ByteVector pack(ByteVector values) {
+        IntVector bits = values.reinterpretAsInts();
+        
+        IntVector block = bits.and(0x3F).lanewise(VectorOperators.LSHL, 18)
+                .or(bits.and(0x3F00).lanewise(VectorOperators.LSHL, 4))
+                .or(bits.and(0x3F0000).lanewise(VectorOperators.LSHR, 10))
+                .or(bits.lanewise(VectorOperators.LSHR, 24));
+        
+        return block.reinterpretAsBytes().rearrange(PACK);
+    }
+    
+    /**
+     * Store the packed binary bytes only, bytes after them must not be touched
+     * since they may belong to other concurrent decoding
+     * 
+     * @param packed packed bytes
+     * @param dest destination bytes
+     * @param doffset destination offset
+     */
+    private static void store(ByteVector packed, byte[] dest, int doffset) {
+        ((ByteVector)packed.reinterpretShape(HALF_SPECIES, 0)).intoArray(dest, doffset);
+        
+        if (QUARTER_SPECIES != null) {
+            ((ByteVector)packed.slice(LANES / 2).reinterpretShape(QUARTER_SPECIES, 0)).intoArray(dest, doffset + LANES / 2);
+        } else {
+            INT_VIEW.set(dest, doffset + LANES / 2, packed.reinterpretAsInts().lane(LANES / 8));
+        }
+    }
+}